@@ -0,0 +1,58 @@
+package bench;
+
+import codelab.Lexer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * <p>Compares the bulk scanning of the whitespaces, comments and string bodies with the scalar fallback of
+ * {@link Lexer#setBulkScanning(boolean)}, for in-memory and memory-mapped sources.</p>
+ * <p><strong>Usage :</strong> {@code bulk_scan_benchmark [size in MB]}, {@code 16} by default.</p>
+ **/
+public class BulkScanBenchmark {
+
+    public static void main(String[] args) throws Exception
+    {
+        int size = (args.length == 1 ? Integer.parseInt(args[0]) : 16) << 20;
+
+        run("comments", corpus(size, "var x = 1; // a comment that runs until the end of the line, as most of them do\n"));
+        run("strings", corpus(size, "print \"a long string literal, that holds a sentence\nand spans two lines\";\n"));
+        run("indentation", corpus(size, "{\n                x = x + 1;\n            \t\t    }\n"));
+    }
+
+    private static void run(String name, String source) throws Exception
+    {
+        Path path = Files.createTempFile("lox-bench", ".lox");
+        path.toFile().deleteOnExit();
+        Files.writeString(path, source);
+
+        for (boolean bulk : new boolean[] { false, true })
+        {
+            String mode = bulk ? "bulk" : "scalar";
+            Harness.measure(name + " / chars / " + mode, "tokens", 3, 10, () -> {
+                Lexer lexer = new Lexer(source);
+                lexer.setBulkScanning(bulk);
+                return lexer.scanBuffer().size();
+            });
+            Harness.measure(name + " / mapped / " + mode, "tokens", 3, 10, () -> {
+                Lexer lexer = Lexer.ofFile(path);
+                lexer.setBulkScanning(bulk);
+                return lexer.scanBuffer().size();
+            });
+        }
+    }
+
+    /**
+     * @return about {@code size} characters, repeating the {@code line} with a few random identifiers in between.
+     **/
+    private static String corpus(int size, String line)
+    {
+        Random random = new Random(42);
+        StringBuilder corpus = new StringBuilder(size + line.length());
+        while (corpus.length() < size)
+            corpus.append("id").append(random.nextInt(100)).append(' ').append(line);
+        return corpus.toString();
+    }
+}
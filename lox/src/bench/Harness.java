@@ -0,0 +1,82 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * <p>Minimal benchmark harness : runs a {@link Workload} for a few warm-up iterations, then measures its throughput and the
+ * bytes it allocates on the calling thread.</p>
+ * <p><strong>Output :</strong> {@code lexer.scanTokens   12.3 ms/op   4.1e7 tokens/s   1024 B/op}</p>
+ * <p>The simplex module has a copy of it, {@code simplex.bench.Harness}, as the two modules do not depend on each other. A
+ * change to one of them should be made to the other.</p>
+ **/
+public final class Harness {
+
+    private Harness() { }
+
+
+    /**
+     * A measured piece of work.
+     **/
+    public interface Workload
+    {
+        /**
+         * @return the number of items processed (tokens, nodes, ...), used to compute the throughput.
+         **/
+        long run() throws Exception;
+    }
+
+
+    /**
+     * Result of {@link Harness#measure(String, String, int, int, Workload)}.
+     **/
+    public static final class Result
+    {
+        public final String name;
+        public final double nanosPerOp;
+        public final double itemsPerSecond;
+        public final double bytesPerOp;
+
+        Result(String name, double nanosPerOp, double itemsPerSecond, double bytesPerOp)
+        {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.itemsPerSecond = itemsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * @return the number of bytes allocated by the current thread so far.
+     **/
+    public static long allocatedBytes()
+    {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs {@code warmups} untimed iterations, then {@code iterations} measured ones, and prints the result.
+     * @param unit name of the items counted by the workload, e.g. {@code "tokens"}.
+     **/
+    public static Result measure(String name, String unit, int warmups, int iterations, Workload workload) throws Exception
+    {
+        for (int i = 0; i < warmups; i++)
+            workload.run();
+
+        long items = 0;
+        long bytes = allocatedBytes();
+        long time = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            items += workload.run();
+        time = System.nanoTime() - time;
+        bytes = allocatedBytes() - bytes;
+
+        Result result = new Result(name, (double) time / iterations, items * 1e9 / time, (double) bytes / iterations);
+        System.out.printf("%-40s %12.3f ms/op %12.4g %s/s %14.0f B/op%n",
+                name, result.nanosPerOp / 1e6, result.itemsPerSecond, unit, result.bytesPerOp);
+        return result;
+    }
+}
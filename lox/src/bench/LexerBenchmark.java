@@ -0,0 +1,233 @@
+package bench;
+
+import codelab.Lexer;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * <p>Measures the throughput and the bytes allocated per operation of {@link Lexer#scanTokens()}, over synthetic corpora that
+ * each stress a different part of the lexer, and sizes from 1 KB to the given maximum. The allocations are counted per thread
+ * by the {@link Harness}, in place of the {@code -prof gc} of JMH.</p>
+ * <p>It ends with the REPL case: a new {@link Lexer} per short line, dominated by the keyword lookup and the number parsing.</p>
+ * <p><strong>Usage :</strong> {@code lexer_benchmark [maximum size in MB] [corpus]}, {@code 16} MB and every corpus by default.
+ * The 100 MB corpora need a heap of about 2 GB.</p>
+ **/
+public class LexerBenchmark {
+
+    private static final String[] KEYWORDS = {
+        "and", "class", "else", "false", "fun", "for", "if", "nil", "or", "print", "return", "super", "this", "true", "var",
+        "while"
+    };
+
+    private static final String[] REPL_LINES = {
+        "print 1 + 2;",
+        "var answer = 42;",
+        "print answer * 3.5 - 0.25;",
+        "if (answer >= 10 and !false) print \"big\"; else print nil;",
+        "fun square(x) { return x * x; }",
+        "for (var i = 0; i < 10; i = i + 1) print i;",
+        "class Point { init(x, y) { this.x = x; this.y = y; } }",
+        "print \"hello\" + \" \" + \"world\";"
+    };
+
+    /**
+     * Number of bytes lexed by each measurement, so that the small corpora are repeated enough to be timed.
+     **/
+    private static final long BYTES_PER_MEASURE = 64L << 20;
+
+    public static void main(String[] args) throws Exception
+    {
+        int maximum = args.length >= 1 ? Integer.parseInt(args[0]) : 16;
+        String only = args.length == 2 ? args[1] : null;
+
+        int[] sizes = { 1 << 10, 64 << 10, 1 << 20, 16 << 20, 100 << 20 };
+        for (int size : sizes)
+        {
+            if (size > maximum << 20) break;
+
+            run(only, "identifiers", size, LexerBenchmark::identifiers);
+            run(only, "keywords", size, LexerBenchmark::keywords);
+            run(only, "numbers", size, LexerBenchmark::numbers);
+            run(only, "strings", size, LexerBenchmark::strings);
+            run(only, "comments", size, LexerBenchmark::comments);
+            run(only, "nesting", size, LexerBenchmark::nesting);
+        }
+
+        if (only == null || only.equals("repl"))
+            Harness.measure("repl / single lines", "tokens", 5, 20, () -> {
+                long tokens = 0;
+                for (int i = 0; i < 10_000; i++)
+                    tokens += new Lexer(REPL_LINES[i % REPL_LINES.length]).scanTokens().size();
+                return tokens;
+            });
+    }
+
+    private static void run(String only, String name, int size, Consumer<Corpus> generator) throws Exception
+    {
+        if (only != null && !only.equals(name)) return;
+
+        Corpus corpus = new Corpus(size);
+        generator.accept(corpus);
+        String source = corpus.toString();
+
+        int repeats = (int) Math.max(1, BYTES_PER_MEASURE / size);
+        int iterations = Math.max(5, Math.min(repeats, 50));
+        int batch = Math.max(1, repeats / iterations);
+
+        Harness.measure(String.format("%s / %s", name, label(size)), "tokens", Math.min(iterations, 10), iterations, () -> {
+            long tokens = 0;
+            for (int i = 0; i < batch; i++)
+                tokens += new Lexer(source).scanTokens().size();
+            return tokens;
+        });
+    }
+
+    private static String label(int size)
+    {
+        return size >= 1 << 20 ? (size >> 20) + " MB" : (size >> 10) + " KB";
+    }
+
+
+//> LexerBenchmark.class::corpora
+    /**
+     * Random identifiers of 1 to 12 characters, most of them distinct, separated by single operators.
+     **/
+    private static void identifiers(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            corpus.identifier(1 + corpus.random.nextInt(12));
+            corpus.append(corpus.random.nextInt(8) == 0 ? ";\n" : " + ");
+        }
+    }
+
+    /**
+     * Keywords only, with a few identifiers that share a prefix with one of them, to exercise the keyword lookup.
+     **/
+    private static void keywords(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            String keyword = KEYWORDS[corpus.random.nextInt(KEYWORDS.length)];
+            corpus.append(keyword);
+            if (corpus.random.nextInt(4) == 0) corpus.append("s");
+            corpus.append(corpus.random.nextInt(10) == 0 ? "\n" : " ");
+        }
+    }
+
+    /**
+     * Integral and fractional literals of various lengths, including some that do not fit in a {@code long}.
+     **/
+    private static void numbers(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            switch (corpus.random.nextInt(4))
+            {
+                case 0: corpus.append(Integer.toString(corpus.random.nextInt(10))); break;
+                case 1: corpus.append(Long.toString(corpus.random.nextLong() & Long.MAX_VALUE)); break;
+                case 2: corpus.append(corpus.random.nextInt(100_000) + "." + corpus.random.nextInt(1000)); break;
+                default: corpus.append("123456789012345678901234.5");
+            }
+            corpus.append(corpus.random.nextInt(8) == 0 ? ";\n" : ", ");
+        }
+    }
+
+    /**
+     * String literals of 16 to 1024 characters, some of them spanning several lines.
+     **/
+    private static void strings(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            int length = 16 << corpus.random.nextInt(7);
+            corpus.append("print \"");
+            for (int i = 0; i < length; i++)
+                corpus.append(i % 97 == 96 ? '\n' : (char) ('a' + corpus.random.nextInt(26)));
+            corpus.append("\";\n");
+        }
+    }
+
+    /**
+     * Mostly line comments, between short statements.
+     **/
+    private static void comments(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            corpus.append("x = x + 1; // ");
+            int length = 20 + corpus.random.nextInt(100);
+            for (int i = 0; i < length; i++)
+                corpus.append(i % 6 == 5 ? ' ' : (char) ('a' + corpus.random.nextInt(26)));
+            corpus.append('\n');
+        }
+    }
+
+    /**
+     * Expressions nested in up to 256 parentheses or braces, with hardly any whitespace.
+     **/
+    private static void nesting(Corpus corpus)
+    {
+        while (corpus.hasRoom())
+        {
+            int depth = 1 + corpus.random.nextInt(256);
+            boolean braces = corpus.random.nextBoolean();
+            for (int i = 0; i < depth; i++)
+                corpus.append(braces ? '{' : '(');
+            corpus.append("a-1");
+            for (int i = 0; i < depth; i++)
+                corpus.append(braces ? '}' : ')');
+            corpus.append(";\n");
+        }
+    }
+//< LexerBenchmark.class::corpora
+
+
+    /**
+     * Source being generated, of roughly the requested size, with a fixed seed so that every run lexes the same corpus.
+     **/
+    private static final class Corpus
+    {
+        final Random random = new Random(42);
+        private final StringBuilder text;
+        private final int size;
+
+        Corpus(int size)
+        {
+            this.size = size;
+            this.text = new StringBuilder(size + 2048);
+        }
+
+        boolean hasRoom()
+        {
+            return text.length() < size;
+        }
+
+        void append(String s)
+        {
+            text.append(s);
+        }
+
+        void append(char c)
+        {
+            text.append(c);
+        }
+
+        void identifier(int length)
+        {
+            text.append((char) ('a' + random.nextInt(26)));
+            for (int i = 1; i < length; i++)
+            {
+                int c = random.nextInt(37);
+                text.append(c < 26 ? (char) ('a' + c) : c < 36 ? (char) ('0' + c - 26) : '_');
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return text.toString();
+        }
+    }
+}
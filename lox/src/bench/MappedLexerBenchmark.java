@@ -0,0 +1,54 @@
+package bench;
+
+import codelab.Lexer;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * <p>Compares the tokens per second of {@link Lexer#ofFile(Path)} with reading, decoding and lexing the whole file as a
+ * {@code String} through {@link Lexer#scanTokens()}.</p>
+ * <p><strong>Usage :</strong> {@code mapped_lexer_benchmark [script]}, a synthetic script is generated if none is given.</p>
+ **/
+public class MappedLexerBenchmark {
+
+    public static void main(String[] args) throws Exception
+    {
+        Path path = args.length == 1 ? Paths.get(args[0]) : generate(16 << 20);
+
+        Harness.measure("readAllBytes + scanTokens()", "tokens", 3, 5, () -> {
+            byte[] bytes = Files.readAllBytes(path);
+            return new Lexer(new String(bytes, Charset.defaultCharset())).scanTokens().size();
+        });
+        Harness.measure("Lexer.ofFile + scanTokens()", "tokens", 3, 5, () ->
+            Lexer.ofFile(path).scanTokens().size()
+        );
+        Harness.measure("Lexer.ofFile + scanBuffer()", "tokens", 3, 5, () ->
+            Lexer.ofFile(path).scanBuffer().size()
+        );
+    }
+
+    /**
+     * Writes a temporary script of roughly {@code size} bytes.
+     **/
+    private static Path generate(int size) throws IOException
+    {
+        String[] lexemes = {
+            "var", "x", "counter", "=", "12", "3.25", "+", "-", "*", "/", "(", ")", "{", "}", ";",
+            "print", "\"some text\"", "if", "else", "while", "<=", "==", "!=", "\n", "// a comment\n"
+        };
+        Random random = new Random(42);
+        StringBuilder script = new StringBuilder(size + 64);
+        while (script.length() < size)
+            script.append(lexemes[random.nextInt(lexemes.length)]).append(' ');
+
+        Path path = Files.createTempFile("lox-bench", ".lox");
+        path.toFile().deleteOnExit();
+        Files.writeString(path, script);
+        return path;
+    }
+}
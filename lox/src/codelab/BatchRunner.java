@@ -0,0 +1,192 @@
+package codelab;
+
+import lang.Resolver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>Validates every {@code .lox} file of a directory tree concurrently, each one in its own {@link LoxContext} session :
+ * the file is lexed, then its variables are resolved, and the diagnostics of all the files are aggregated.</p>
+ * <p>The files run on virtual threads when the runtime provides them, at most {@code parallelism} at a time, otherwise on a
+ * fixed pool of {@code parallelism} platform threads.</p>
+ **/
+public final class BatchRunner {
+//> BatchRunner.class::result
+    /**
+     * Aggregated diagnostics of a batch.
+     **/
+    public static final class Result
+    {
+        public final int files;
+        public final int failedFiles;
+        public final int staticLookups;
+        public final int lookups;
+        /**
+         * Diagnostics of the files in the order of their paths, as {@code path: [line 7] Error#at '+': ...}.
+         **/
+        public final List<String> diagnostics;
+        public final long nanos;
+
+        Result(int files, int failedFiles, int staticLookups, int lookups, List<String> diagnostics, long nanos)
+        {
+            this.files = files;
+            this.failedFiles = failedFiles;
+            this.staticLookups = staticLookups;
+            this.lookups = lookups;
+            this.diagnostics = diagnostics;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return files + " files, " + failedFiles + " with errors, " + diagnostics.size() + " diagnostics, "
+                    + staticLookups + "/" + lookups + " static lookups, in " + nanos / 1_000_000 + " ms";
+        }
+    }
+//< BatchRunner.class::result
+
+
+//> BatchRunner.class::fields
+    private final int parallelism;
+//< BatchRunner.class::fields
+
+
+//> BatchRunner.class::constructors
+    /**
+     * @param parallelism the maximal number of files processed at the same time.
+     **/
+    public BatchRunner(int parallelism)
+    {
+        if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be positive : " + parallelism);
+        this.parallelism = parallelism;
+    }
+//< BatchRunner.class::constructors
+
+
+//> BatchRunner.class::entry-point
+    public Result run(Path directory) throws IOException, InterruptedException
+    {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            files = paths.filter(path -> path.toString().endsWith(".lox") && Files.isRegularFile(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        long time = System.nanoTime();
+        ExecutorService virtualThreads = virtualThreads();
+        ExecutorService executor = virtualThreads != null ? virtualThreads : Executors.newFixedThreadPool(parallelism);
+        Semaphore permits = new Semaphore(parallelism);
+
+        List<Future<int[]>> futures = new ArrayList<>(files.size());
+        List<LoxContext> contexts = new ArrayList<>(files.size());
+        for (Path file : files)
+        {
+            LoxContext context = new LoxContext(new PrintStream(OutputStream.nullOutputStream()), null);
+            contexts.add(context);
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try
+                {
+                    return context.call(() -> check(file));
+                }
+                finally
+                {
+                    permits.release();
+                }
+            }));
+        }
+
+        int failedFiles = 0;
+        int staticLookups = 0;
+        int lookups = 0;
+        List<String> diagnostics = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < files.size(); i++)
+            {
+                int[] counts = await(futures.get(i), files.get(i), contexts.get(i));
+                staticLookups += counts[0];
+                lookups += counts[1];
+
+                LoxContext context = contexts.get(i);
+                if (context.hadError()) failedFiles++;
+                for (String diagnostic : context.diagnostics())
+                    diagnostics.add(files.get(i) + ": " + diagnostic);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return new Result(files.size(), failedFiles, staticLookups, lookups, diagnostics, System.nanoTime() - time);
+    }
+
+    /**
+     * Lexes and resolves a file in the current session.
+     * @return the number of static lookups, and of lookups.
+     **/
+    private static int[] check(Path file) throws IOException
+    {
+        // A file that can't be scanned in place is decoded whole, with the malformed bytes replaced as by a streaming lexer,
+        // since the resolver needs a buffer of all the tokens.
+        ByteBuffer bytes = Lexer.mapScannable(file);
+        Lexer lexer = bytes != null ? new Lexer(bytes) : new Lexer(new String(Files.readAllBytes(file), Charset.defaultCharset()));
+
+        Resolver resolver = new Resolver(lexer.scanBuffer());
+        resolver.resolve();
+        return new int[] { resolver.staticLookups(), resolver.lookups() };
+    }
+
+    /**
+     * @return the result of the file, reporting its failure, if any, as a diagnostic of its session.
+     **/
+    private static int[] await(Future<int[]> future, Path file, LoxContext context) throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException exception)
+        {
+            context.report(0, "Batch", "Can't process " + file + " : " + exception.getCause());
+            return new int[2];
+        }
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or {@code null} if the runtime has none (before Java 21, or
+     *         without the preview features enabled).
+     **/
+    private static ExecutorService virtualThreads()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException | UnsupportedOperationException exception)
+        {
+            return null;
+        }
+    }
+//< BatchRunner.class::entry-point
+}
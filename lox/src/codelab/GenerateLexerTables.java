@@ -0,0 +1,252 @@
+package codelab;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>Generates the {@code LexerTables} of the {@link Lexer} automaton, from the spelling of the {@link TokenType}'s.</p>
+ * <p>The operators and keywords are merged into a single trie, whose states become the rows of a transition table. Identifiers
+ * run through the keyword states, and fall into a plain identifier state as soon as they leave them, so recognising a keyword
+ * needs neither a {@code substring} nor a lookup. The ASCII characters that behave alike in every state share a column.</p>
+ **/
+public class GenerateLexerTables {
+//> GenerateLexerTables.class::entry-point
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1)
+        {
+            System.err.println("Usage: generate_lexer_tables <output directory>");
+            System.exit(64);
+        }
+        String outputDir = args[0];
+
+        defineTables(outputDir, "LexerTables", Arrays.asList(
+                "LEFT_PAREN    : (",
+                "RIGHT_PAREN   : )",
+                "LEFT_BRACE    : {",
+                "RIGHT_BRACE   : }",
+                "COMMA         : ,",
+                "DOT           : .",
+                "MINUS         : -",
+                "PLUS          : +",
+                "SEMICOLON     : ;",
+                "SLASH         : /",
+                "STAR          : *",
+                "BANG          : !",
+                "BANG_EQUAL    : !=",
+                "EQUAL         : =",
+                "EQUAL_EQUAL   : ==",
+                "GREATER       : >",
+                "GREATER_EQUAL : >=",
+                "LESS          : <",
+                "LESS_EQUAL    : <="
+        ), Arrays.asList(
+                "AND", "CLASS", "ELSE", "FALSE", "FUN", "FOR", "IF", "NIL",
+                "OR", "PRINT", "RETURN", "SUPER", "THIS", "TRUE", "VAR", "WHILE"
+        ));
+    }
+//< GenerateLexerTables.class::entry-point
+
+
+//> GenerateLexerTables.class::lexical-classes
+    /**
+     * Spelling of the start of a comment, that ends with the line.
+     **/
+    private static final String COMMENT = "//";
+
+    /**
+     * Token types that are not spelled by the operators or the keywords, but by their own rules in the {@link Lexer}.
+     **/
+    private static final Set<TokenType> LITERALS = EnumSet.of(TokenType.IDENTIFIER, TokenType.STRING, TokenType.NUMBER,
+            TokenType.EOF);
+
+    private static final String SKIP = " \r\t";
+    private static final String NEWLINE = "\n";
+    private static final String QUOTE = "\"";
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlpha(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+//< GenerateLexerTables.class::lexical-classes
+
+
+//> GenerateLexerTables.class::automaton
+    private static final int DEAD = -1;
+    private static final int START = 0;
+    private static final int IDENTIFIER = 1;
+
+    /**
+     * A state of the automaton, as a node of the trie of spellings.
+     **/
+    private static class State
+    {
+        final int id;
+        final boolean word;
+        final Map<Character, State> next = new TreeMap<>();
+        String accept;
+
+        State(int id, boolean word, String accept)
+        {
+            this.id = id;
+            this.word = word;
+            this.accept = accept;
+        }
+    }
+
+    private static List<State> buildAutomaton(Map<String, String> spellings)
+    {
+        List<State> states = new ArrayList<>();
+        states.add(new State(START, false, null));
+        states.add(new State(IDENTIFIER, true, "IDENTIFIER"));
+
+        for (Map.Entry<String, String> spelling : spellings.entrySet())
+        {
+            State state = states.get(START);
+            for (char c : spelling.getKey().toCharArray())
+            {
+                State next = state.next.get(c);
+                if (next == null)
+                {
+                    boolean word = isAlpha(c);
+                    next = new State(states.size(), word, word ? "IDENTIFIER" : null);
+                    states.add(next);
+                    state.next.put(c, next);
+                }
+                state = next;
+            }
+            state.accept = spelling.getValue();
+        }
+        return states;
+    }
+
+    /**
+     * @return the state reached from {@code state} with the character {@code c}, or {@link GenerateLexerTables#DEAD}.
+     **/
+    private static int transition(List<State> states, int state, char c)
+    {
+        State from = states.get(state);
+        State next = from.next.get(c);
+        if (next != null) return next.id;
+
+        boolean identifierChar = state == START ? isAlpha(c) : from.word && (isAlpha(c) || isDigit(c));
+        return identifierChar ? IDENTIFIER : DEAD;
+    }
+//< GenerateLexerTables.class::automaton
+
+
+//< GenerateLexerTables.class::generate
+    private static void defineTables(String outputDir, String className, List<String> operators, List<String> keywords)
+            throws IOException
+    {
+        Map<String, String> spellings = new LinkedHashMap<>();
+        Set<TokenType> spelled = EnumSet.copyOf(LITERALS);
+        for (String operator : operators)
+        {
+            TokenType type = TokenType.valueOf(operator.split(":")[0].trim());
+            spellings.put(operator.split(":")[1].trim(), type.name());
+            spelled.add(type);
+        }
+        for (String keyword : keywords)
+        {
+            TokenType type = TokenType.valueOf(keyword);
+            spellings.put(type.name().toLowerCase(), type.name());
+            spelled.add(type);
+        }
+        for (TokenType type : TokenType.values())
+            if (!spelled.contains(type))
+                throw new IllegalArgumentException("The token type " + type + " has no spelling.");
+
+        spellings.put(COMMENT, null);
+        List<State> states = buildAutomaton(spellings);
+        int comment = START;
+        for (char c : COMMENT.toCharArray())
+            comment = transition(states, comment, c);
+
+        // Characters with the same transitions in every state share a column.
+        Map<List<Integer>, Integer> columns = new HashMap<>();
+        int[] charColumns = new int[128];
+        for (char c = 0; c < 128; c++)
+        {
+            List<Integer> signature = new ArrayList<>();
+            for (int state = 0; state < states.size(); state++)
+                signature.add(transition(states, state, c));
+            charColumns[c] = columns.computeIfAbsent(signature, key -> columns.size());
+        }
+
+        int[] transitions = new int[states.size() * columns.size()];
+        for (char c = 0; c < 128; c++)
+            for (int state = 0; state < states.size(); state++)
+                transitions[state * columns.size() + charColumns[c]] = transition(states, state, c);
+
+        int[] actions = new int[128];
+        int[] flags = new int[128];
+        for (char c = 0; c < 128; c++)
+        {
+            if (SKIP.indexOf(c) >= 0) actions[c] = 0;
+            else if (NEWLINE.indexOf(c) >= 0) actions[c] = 1;
+            else if (QUOTE.indexOf(c) >= 0) actions[c] = 2;
+            else if (isDigit(c)) actions[c] = 3;
+            else if (transition(states, START, c) != DEAD) actions[c] = 4;
+            else actions[c] = 5;
+
+            flags[c] = (isAlpha(c) ? 1 : 0) | (isDigit(c) ? 2 : 0);
+        }
+
+        String path = outputDir + "/" + className + ".java";
+        PrintWriter writer = new PrintWriter(path, "UTF-8");
+
+        writer.println("package codelab;");
+        writer.println();
+        writer.println("/**");
+        writer.println(" * Tables of the {@link Lexer} automaton, generated by {@link GenerateLexerTables}.");
+        writer.println(" **/");
+        writer.println("final class " + className + " {");
+        writer.println("\tprivate " + className + "() { }");
+        writer.println();
+        writer.println("\t// Actions of the first character of a lexeme.");
+        writer.println("\tstatic final int SKIP = 0, NEWLINE = 1, STRING = 2, NUMBER = 3, TOKEN = 4, ERROR = 5;");
+        writer.println("\tstatic final byte[] ACTIONS = " + array(actions) + ";");
+        writer.println();
+        writer.println("\t// Character classes.");
+        writer.println("\tstatic final int ALPHA = 1, DIGIT = 2;");
+        writer.println("\tstatic final byte[] FLAGS = " + array(flags) + ";");
+        writer.println();
+        writer.println("\t// Automaton of the operators, keywords and identifiers.");
+        writer.println("\tstatic final int START = " + START + ", DEAD = " + DEAD + ", COMMENT = " + comment
+                + ", COLUMNS = " + columns.size() + ";");
+        writer.println("\tstatic final byte[] CHAR_COLUMNS = " + array(charColumns) + ";");
+        writer.println("\tstatic final short[] TRANSITIONS = " + array(transitions) + ";");
+        writer.println("\tstatic final TokenType[] ACCEPTS = {");
+        for (State state : states)
+            writer.println("\t\t" + (state.accept == null ? "null" : "TokenType." + state.accept) + ",");
+        writer.println("\t};");
+        writer.println("}");
+        writer.close();
+    }
+
+    private static String array(int[] values)
+    {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++)
+        {
+            builder.append(i % 32 == 0 ? "\n\t\t" : " ").append(values[i]);
+            if (i + 1 < values.length) builder.append(",");
+        }
+        return builder.append("\n\t}").toString();
+    }
+//< GenerateLexerTables.class::generate
+}
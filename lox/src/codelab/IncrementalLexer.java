@@ -0,0 +1,238 @@
+package codelab;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <p>Keeps the tokens of an editable buffer up to date, re-scanning only the region damaged by each edit.</p>
+ * <p>The tokens are split at the last edit, like the text of a gap buffer : the {@link IncrementalLexer#head} holds the
+ * tokens before it with their offsets and lines, and the {@link IncrementalLexer#tail} holds the tokens after it in reverse
+ * order, with their offsets counted from the end of the text, and their lines from its last line. An edit only moves the
+ * tokens between the gap and itself, so the tokens after the edit are shifted lazily, without being rewritten.</p>
+ * <p><strong>Example :</strong></p>
+ * <pre>{@code
+ *      IncrementalLexer lexer = new IncrementalLexer("var a = 1;");
+ *      lexer.edit(8, 1, "\"some\ntext\"");
+ *      lexer.tokens().forEach(System.out::println);
+ * }</pre>
+ **/
+public class IncrementalLexer {
+//> IncrementalLexer.class::constructors
+    public IncrementalLexer(String text)
+    {
+        this.text = text.toCharArray();
+        this.length = this.text.length;
+        this.lastLine = 1 + newlines(this.text, 0, length);
+        this.symbols = new SymbolTable();
+        this.head = new TokenBuffer(this.text, symbols, length >> 3);
+        this.tail = new TokenBuffer(this.text, symbols, 16);
+
+        Lexer lexer = new Lexer(this.text, 0, length, 1, symbols);
+        TokenBuffer tokens = lexer.scanBuffer();
+        for (int i = tokens.size() - 1; i >= 0; i--)
+            tail.add(tokens, i, length - tokens.start(i), lastLine - tokens.line(i));
+    }
+//< IncrementalLexer.class::constructors
+
+
+//> IncrementalLexer.class::fields
+    /**
+     * Number of characters the {@link Lexer} may look at, after the one that ends a token.
+     **/
+    private static final int LOOKAHEAD = 1;
+
+    /**
+     * Characters of the text, up to {@link IncrementalLexer#length}.
+     **/
+    private char[] text;
+    private int length;
+
+    /**
+     * Line of the end of the text.
+     **/
+    private int lastLine;
+
+    private final SymbolTable symbols;
+
+    /**
+     * Tokens before the last edit, with their offsets and lines.
+     **/
+    private final TokenBuffer head;
+
+    /**
+     * Tokens after the last edit, from the last one, with their offsets counted back from {@link IncrementalLexer#length}, and
+     * their lines counted back from {@link IncrementalLexer#lastLine}.
+     **/
+    private final TokenBuffer tail;
+
+    /**
+     * Number of tokens scanned by the last edit.
+     **/
+    private int rescanned = 0;
+//< IncrementalLexer.class::fields
+
+
+//> IncrementalLexer.class::edit
+    /**
+     * Replaces {@code removed} characters at {@code offset} by the {@code inserted} text, and re-scans the tokens from the
+     * end of the last token before the edit, until a scanned token matches an old one after the edit.
+     **/
+    public void edit(int offset, int removed, String inserted)
+    {
+        Objects.checkFromIndexSize(offset, removed, length);
+
+        // Moves the gap to the last token whose scan didn't look at the edited text : a token that ends at the offset may grow
+        // with it, and a number looks one more character ahead for its fraction.
+        while (tail.size() > 1 && tailStart(tail.size() - 1) + tail.length(tail.size() - 1) + LOOKAHEAD < offset)
+            moveToHead();
+        while (head.size() > 0 && head.start(head.size() - 1) + head.length(head.size() - 1) + LOOKAHEAD >= offset)
+            moveToTail();
+
+        int from = head.size() > 0 ? head.start(head.size() - 1) + head.length(head.size() - 1) : 0;
+        int line = head.size() > 0 ? head.line(head.size() - 1) : 1;
+
+        replace(offset, removed, inserted);
+
+        Lexer lexer = new Lexer(text, from, length, line, symbols);
+        TokenBuffer scanned = lexer.buffer();
+        int damageEnd = offset + inserted.length();
+        rescanned = 0;
+
+        while (lexer.scanNextToken())
+        {
+            int last = scanned.size() - 1;
+            int start = scanned.start(last);
+            rescanned++;
+
+            // Drops the old tokens that the scanned one ran over.
+            while (tailStart(tail.size() - 1) < start)
+                tail.removeLast();
+
+            if (start >= damageEnd && tailStart(tail.size() - 1) == start && scanned.sameKind(last, tail, tail.size() - 1))
+                break;
+
+            head.add(scanned, last, start, scanned.line(last));
+        }
+    }
+
+    /**
+     * @return the number of tokens scanned by the last {@link IncrementalLexer#edit(int, int, String)}.
+     **/
+    public int rescanned()
+    {
+        return rescanned;
+    }
+
+    private void replace(int offset, int removed, String inserted)
+    {
+        lastLine -= newlines(text, offset, offset + removed);
+
+        int newLength = length - removed + inserted.length();
+        if (newLength > text.length)
+            head.chars = tail.chars = text = Arrays.copyOf(text, Math.max(newLength, text.length * 2));
+
+        System.arraycopy(text, offset + removed, text, offset + inserted.length(), length - offset - removed);
+        inserted.getChars(0, inserted.length(), text, offset);
+        length = newLength;
+
+        lastLine += newlines(text, offset, offset + inserted.length());
+    }
+
+    private void moveToHead()
+    {
+        int index = tail.size() - 1;
+        head.add(tail, index, tailStart(index), tailLine(index));
+        tail.removeLast();
+    }
+
+    private void moveToTail()
+    {
+        int index = head.size() - 1;
+        tail.add(head, index, length - head.start(index), lastLine - head.line(index));
+        head.removeLast();
+    }
+//< IncrementalLexer.class::edit
+
+
+//> IncrementalLexer.class::accessors
+    public String text()
+    {
+        return new String(text, 0, length);
+    }
+
+    /**
+     * @return the number of tokens, the last one being the {@link TokenType#EOF} token.
+     **/
+    public int size()
+    {
+        return head.size() + tail.size();
+    }
+
+    /**
+     * @return a new {@link Token} holding the token at the given index.
+     **/
+    public Token token(int index)
+    {
+        if (index < head.size())
+            return head.token(index);
+
+        index = tail.size() - 1 - (index - head.size());
+        return tail.token(index, tailStart(index), tailLine(index));
+    }
+
+    /**
+     * @return a read-only list of the tokens, that materialises a {@link Token} on every {@link List#get(int)}.
+     **/
+    public List<Token> tokens()
+    {
+        return new TokenList();
+    }
+
+    private class TokenList extends AbstractList<Token> implements RandomAccess
+    {
+        @Override
+        public Token get(int index)
+        {
+            return token(Objects.checkIndex(index, size()));
+        }
+
+        @Override
+        public int size()
+        {
+            return IncrementalLexer.this.size();
+        }
+    }
+
+    /**
+     * @return the table of the {@link Token#symbol} IDs, shared by all the edits.
+     **/
+    public SymbolTable symbols()
+    {
+        return symbols;
+    }
+//< IncrementalLexer.class::accessors
+
+
+//> IncrementalLexer.class::utils
+    private int tailStart(int index)
+    {
+        return length - tail.start(index);
+    }
+
+    private int tailLine(int index)
+    {
+        return lastLine - tail.line(index);
+    }
+
+    private static int newlines(char[] text, int from, int to)
+    {
+        int count = 0;
+        for (int i = from; i < to; i++)
+            if (text[i] == '\n') count++;
+        return count;
+    }
+//< IncrementalLexer.class::utils
+}
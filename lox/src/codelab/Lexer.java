@@ -1,131 +1,494 @@
 package codelab;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Lexer {
 //> Lexer.class::constructors
     public Lexer(String source)
     {
-        this.source = source;
-        tokens = new ArrayList<>();
+        this.buffer = source.toCharArray();
+        this.limit = buffer.length;
+        this.reader = null;
+        this.streaming = false;
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenBuffer(buffer, symbols, limit >> 3);
     }
-//< Lexer.class::constructors
 
+    /**
+     * Creates a lexer over the characters of {@code source} between {@code from} and {@code to}, that starts at the given
+     * {@code line}, and interns its symbols in a shared {@code symbols} table. The offsets of the tokens are the indexes in
+     * {@code source}.
+     **/
+    Lexer(char[] source, int from, int to, int line, SymbolTable symbols)
+    {
+        this.buffer = source;
+        this.limit = to;
+        this.reader = null;
+        this.streaming = false;
+        this.symbols = symbols;
+        this.tokens = new TokenBuffer(buffer, symbols, 16);
+        this.start = this.current = from;
+        this.line = line;
+    }
 
-//< Lexer.class::static-fields
-    private static final Map<String, TokenType> keywords;
+    /**
+     * Creates a lexer for a chunk of the source of {@code parent}, that starts at {@code from} and at line {@code 1}, and stops
+     * at the first token boundary after {@code stop}. It has its own symbol table, keeps its errors until they are merged, and
+     * scans with the {@link Lexer#setBulkScanning(boolean)} setting of the parent.
+     * @see Lexer#scanBuffer(ForkJoinPool)
+     **/
+    private Lexer(Lexer parent, int from, int stop)
+    {
+        this.buffer = parent.buffer;
+        this.bytes = parent.bytes;
+        this.limit = parent.limit;
+        this.reader = null;
+        this.streaming = false;
+        this.symbols = new SymbolTable();
+        this.tokens = bytes != null
+                ? new TokenBuffer(bytes, symbols, (stop - from) >> 3)
+                : new TokenBuffer(buffer, symbols, (stop - from) >> 3);
+        this.start = this.current = from;
+        this.stop = stop;
+        this.errors = new ArrayList<>();
+        this.bulkScanning = parent.bulkScanning;
+    }
 
-    static
+    /**
+     * Creates a streaming lexer, that reads the source in chunks of {@link Lexer#CHUNK_SIZE} characters. Only the lexeme being
+     * scanned is kept in memory, so the footprint does not depend on the size of the input.
+     **/
+    public Lexer(Reader reader)
     {
-        keywords = new HashMap<>();
-        keywords.put("print", TokenType.PRINT);
+        this.buffer = new char[CHUNK_SIZE];
+        this.limit = 0;
+        this.reader = reader;
+        this.streaming = true;
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenBuffer(buffer, symbols, 1);
+    }
 
-        keywords.put("true", TokenType.TRUE);
-        keywords.put("false", TokenType.FALSE);
+    /**
+     * Creates a streaming lexer over a channel, decoding its bytes with the given {@code charset}.
+     * @see Lexer#Lexer(Reader)
+     **/
+    public Lexer(ReadableByteChannel channel, Charset charset)
+    {
+        this(Channels.newReader(channel, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), CHUNK_SIZE));
+    }
 
-        keywords.put("if", TokenType.IF);
-        keywords.put("else", TokenType.ELSE);
+    /**
+     * Creates a lexer that scans the bytes of an ASCII or UTF-8 source directly.
+     * @see Lexer#ofFile(Path)
+     **/
+    Lexer(ByteBuffer bytes)
+    {
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+        this.reader = null;
+        this.streaming = false;
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenBuffer(bytes, symbols, limit >> 3);
+    }
 
-        keywords.put("or", TokenType.OR);
-        keywords.put("and", TokenType.AND);
+    /**
+     * <p>Creates a lexer for a file decoded with the {@link Charset#defaultCharset()}.</p>
+     * <p>The file is memory-mapped, and its bytes are scanned without being copied or decoded, as long as they are ASCII, or
+     * well-formed UTF-8 with a UTF-8 default charset. Only the lexemes are decoded. Otherwise, the file is streamed through the
+     * char path of {@link Lexer#Lexer(ReadableByteChannel, Charset)}.</p>
+     **/
+    public static Lexer ofFile(Path path) throws IOException
+    {
+        ByteBuffer bytes = mapScannable(path);
+        if (bytes != null) return new Lexer(bytes);
+        return new Lexer(FileChannel.open(path), Charset.defaultCharset());
+    }
 
-        keywords.put("while", TokenType.WHILE);
-        keywords.put("for", TokenType.FOR);
+    /**
+     * @return the memory-mapped bytes of the file if they can be scanned without being decoded, as by
+     *         {@link Lexer#ofFile(Path)}, {@code null} otherwise.
+     **/
+    static ByteBuffer mapScannable(Path path) throws IOException
+    {
+        Charset charset = Charset.defaultCharset();
+        try (FileChannel channel = FileChannel.open(path))
+        {
+            if (channel.size() > Integer.MAX_VALUE) return null;
+
+            // The mapping stays valid once the channel is closed.
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int encoding = encodingOf(bytes);
+            boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                    || charset.equals(StandardCharsets.US_ASCII)
+                    || charset.equals(StandardCharsets.ISO_8859_1);
+
+            if ((encoding == ASCII && asciiCompatible) || (encoding == UTF_8 && charset.equals(StandardCharsets.UTF_8)))
+                return bytes;
+            return null;
+        }
+    }
+//< Lexer.class::constructors
 
-        keywords.put("var", TokenType.VAR);
-        keywords.put("nil", TokenType.NIL);
-        keywords.put("return", TokenType.RETURN);
 
-        keywords.put("fun", TokenType.FUN);
-        keywords.put("class", TokenType.CLASS);
+//> Lexer.class::fields
+    /**
+     * Number of characters read at once by a streaming lexer.
+     **/
+    static final int CHUNK_SIZE = 8192;
 
-        keywords.put("this", TokenType.THIS);
-        keywords.put("super", TokenType.SUPER);
-    }
-//< Lexer.class::static-fields
+    /**
+     * Window of the source code. When the lexer is streaming, it only holds the characters from {@link Lexer#start}
+     * onwards, and is refilled from the {@link Lexer#reader}.
+     **/
+    private char[] buffer;
 
+    /**
+     * Number of valid characters in the {@link Lexer#buffer}.
+     **/
+    private int limit;
+
+    /**
+     * Bytes of a memory-mapped source, used instead of the {@link Lexer#buffer} by the lexers created with
+     * {@link Lexer#ofFile(Path)}. The offsets are then counted in bytes.
+     **/
+    private ByteBuffer bytes;
 
-//> Lexer.class::fields
     /**
-     * Raw string of the source code.
+     * Source of the remaining characters, {@code null} once the whole source is in the {@link Lexer#buffer}.
      **/
-    private final String source;
-    private final List<Token> tokens;
+    private Reader reader;
+    private final boolean streaming;
+
+    /**
+     * Tokens scanned so far. A streaming lexer clears them as soon as they have been handed out by {@link Lexer#nextToken()}.
+     **/
+    private final TokenBuffer tokens;
+
+    /**
+     * Interns the text of the identifiers and string literals. It only grows with the number of distinct symbols.
+     **/
+    private final SymbolTable symbols;
+    private boolean reachedEOF = false;
+
+    /**
+     * Offset at which a chunk lexer stops scanning.
+     **/
+    private int stop = Integer.MAX_VALUE;
+
+    /**
+     * Default of {@link Lexer#bulkScanning}, false when the {@code lox.lexer.scalar} system property is set.
+     **/
+    private static final boolean BULK_SCANNING = !Boolean.getBoolean("lox.lexer.scalar");
+
+    /**
+     * True to skip the whitespaces, comments and string bodies of an in-memory source in bulk.
+     * @see Lexer#setBulkScanning(boolean)
+     **/
+    private boolean bulkScanning = BULK_SCANNING;
+
+    /**
+     * Errors of a chunk lexer, reported once the chunk is merged. The other lexers report them right away.
+     **/
+    private List<ChunkError> errors;
 
     private int start = 0;
     private int current = 0;
     private int line = 1;
+
+    /**
+     * Number of characters a streaming lexer dropped from the start of its {@link Lexer#buffer}.
+     **/
+    private long discarded = 0;
 //< Lexer.class::fields
 
 
 //> Lexer.class::common-fields
+    /**
+     * @return the tokens of the source, as {@link Token} views of {@link Lexer#scanBuffer()} unless the lexer is streaming.
+     **/
     public List<Token> scanTokens()
     {
-        while(!isAtEnd())
+        if (!streaming)
+            return scanBuffer().asList();
+
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = nextToken(); token != null; token = nextToken())
+            tokens.add(token);
+        return tokens;
+    }
+
+    /**
+     * Scans the whole source into a {@link TokenBuffer}, ending with the {@link TokenType#EOF} token.
+     * @throws IllegalStateException if the lexer is streaming, as the source is not kept to materialise the lexemes.
+     **/
+    public TokenBuffer scanBuffer()
+    {
+        if (streaming)
+            throw new IllegalStateException("A streaming lexer can only hand out its tokens one by one.");
+
+        while (!isAtEnd())
+        {
+            start = current;
+            scanToken();
+        }
+
+        tokens.add(TokenType.EOF, current, 0, line);
+        return tokens;
+    }
+
+    /**
+     * Minimum number of characters of a chunk lexed in parallel.
+     **/
+    static final int PARALLEL_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * <p>Scans the whole source into a {@link TokenBuffer}, like {@link Lexer#scanBuffer()}, by splitting it in chunks lexed on
+     * the given {@code pool}. The tokens, symbol IDs and reported errors are identical to the sequential ones.</p>
+     * <p>The chunks are split after newlines, found by a speculative pre-scan, that assumes they are not in a string literal.
+     * It holds once the previous chunk ended exactly at the split. Otherwise, the previous chunk is scanned further, and the
+     * chunk that started in a string is dropped. Newlines that end a {@code //} comment are always safe.</p>
+     **/
+    public TokenBuffer scanBuffer(ForkJoinPool pool)
+    {
+        int count = Math.min(pool.getParallelism() * 4, (limit - current) / PARALLEL_CHUNK_SIZE);
+        if (streaming || count < 2)
+            return scanBuffer();
+
+        int[] splits = new int[count + 1];
+        splits[0] = current;
+        splits[count] = limit;
+        for (int i = 1; i < count; i++)
+        {
+            int split = Math.max(splits[i - 1], current + (int) ((long) (limit - current) * i / count));
+            while (split < limit && charAt(split) != '\n') split++;
+            splits[i] = Math.min(split + 1, limit);
+        }
+
+        List<ForkJoinTask<Lexer>> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            Lexer chunk = new Lexer(this, splits[i], splits[i + 1]);
+            chunks.add(pool.submit(() -> {
+                chunk.scanChunk();
+                return chunk;
+            }));
+        }
+
+        // Merges the chunks in order, the line offset being the number of newlines before the owner of the tokens.
+        Lexer owner = chunks.get(0).join();
+        int lineOffset = line - 1;
+        for (int i = 1; i < count; i++)
+        {
+            if (owner.current == splits[i])
+            {
+                lineOffset = merge(owner, lineOffset);
+                owner = chunks.get(i).join();
+            }
+            else
+            {
+                chunks.get(i).cancel(false);
+                owner.stop = splits[i + 1];
+                owner.scanChunk();
+            }
+        }
+        line = merge(owner, lineOffset) + 1;
+        current = limit;
+        reachedEOF = true;
+
+        tokens.add(TokenType.EOF, current, 0, line);
+        return tokens;
+    }
+
+    /**
+     * Scans a chunk until the end of the token that crosses {@link Lexer#stop}, if any.
+     **/
+    private void scanChunk()
+    {
+        while (current < stop && !isAtEnd())
+        {
+            start = current;
+            scanToken();
+        }
+    }
+
+    /**
+     * Appends the tokens of a chunk, with their lines moved by {@code lineOffset}, and their symbols interned in the table of
+     * this lexer, then reports its errors.
+     * @return the line offset of the next chunk.
+     **/
+    private int merge(Lexer chunk, int lineOffset)
+    {
+        int[] symbolMap = new int[chunk.symbols.size()];
+        for (int symbol = 0; symbol < symbolMap.length; symbol++)
+            symbolMap[symbol] = symbols.intern(chunk.symbols, symbol);
+
+        tokens.append(chunk.tokens, lineOffset, symbolMap);
+        for (ChunkError error : chunk.errors)
+            Lox.error(error.line + lineOffset, error.message);
+        return chunk.line - 1 + lineOffset;
+    }
+
+    /**
+     * Scans the source until the next token is found. The token is not kept by the lexer, so it should not be mixed with
+     * {@link Lexer#scanBuffer()}.
+     * @return the next token, the {@link TokenType#EOF} token at the end of the source, and {@code null} afterwards.
+     **/
+    public Token nextToken()
+    {
+        tokens.clear();
+        return scanNextToken() ? tokens.token(0) : null;
+    }
+
+    /**
+     * Scans the source until one more token has been added to the {@link Lexer#buffer()}.
+     * @return false once the {@link TokenType#EOF} token has been added.
+     **/
+    boolean scanNextToken()
+    {
+        int size = tokens.size();
+        while (tokens.size() == size)
         {
+            if (isAtEnd())
+            {
+                if (reachedEOF) return false;
+                reachedEOF = true;
+                tokens.add(TokenType.EOF, current, 0, line);
+                return true;
+            }
+
             start = current;
             scanToken();
         }
+        return true;
+    }
 
-        tokens.add(new Token(TokenType.EOF, "", null, line));
+    /**
+     * @return the tokens scanned so far.
+     **/
+    TokenBuffer buffer()
+    {
         return tokens;
     }
+
+    /**
+     * @return the offset in the whole source of a {@link TokenBuffer#start(int)} of the {@link Lexer#buffer()}, which a
+     *         streaming lexer counts from the start of its window.
+     **/
+    long sourceOffset(int start)
+    {
+        return discarded + start;
+    }
+
+    /**
+     * @return true if the lexer reads its source in chunks, and thus can't {@link Lexer#scanBuffer()}.
+     **/
+    boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * @return the table of the {@link Token#symbol} IDs.
+     **/
+    public SymbolTable symbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * @return a pull iterator over the tokens, that scans the source lazily, and ends with the {@link TokenType#EOF} token.
+     **/
+    public Iterator<Token> tokens()
+    {
+        return new Iterator<>()
+        {
+            private Token token = nextToken();
+
+            @Override
+            public boolean hasNext()
+            {
+                return token != null;
+            }
+
+            @Override
+            public Token next()
+            {
+                if (token == null) throw new NoSuchElementException();
+                Token result = token;
+                token = nextToken();
+                return result;
+            }
+        };
+    }
 //> Lexer.class::common-fields
 
 
 //> Lexer.class::lexical-analysis
+    /**
+     * Dispatches on the action of the first character of the lexeme, looked up in the generated {@link LexerTables}.
+     **/
     private void scanToken()
     {
         char c = consume();
-        switch (c)
+        switch (c < 128 ? LexerTables.ACTIONS[c] : LexerTables.ERROR)
         {
-            case ' ':
-            case '\r':
-            case '\t': break;
-            case '\n': line++; break;
-            case '(': addToken(TokenType.LEFT_PAREN); break;
-            case ')': addToken(TokenType.RIGHT_PAREN); break;
-            case '{': addToken(TokenType.LEFT_BRACE); break;
-            case '}': addToken(TokenType.RIGHT_BRACE); break;
-            case ',': addToken(TokenType.COMMA); break;
-            case '.': addToken(TokenType.DOT); break;
-            case '-': addToken(TokenType.MINUS); break;
-            case '+': addToken(TokenType.PLUS); break;
-            case ';': addToken(TokenType.SEMICOLON); break;
-            case '*': addToken(TokenType.STAR); break;
-            case '!': addToken(match('=') ? TokenType.BANG_EQUAL : TokenType.BANG); break;
-            case '=': addToken(match('=') ? TokenType.EQUAL_EQUAL : TokenType.EQUAL); break;
-            case '<': addToken(match('=') ? TokenType.LESS_EQUAL : TokenType.LESS); break;
-            case '>': addToken(match('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER); break;
-            case '/': comment(); break;
-            case '"': string(); break;
-            default:
-                if (isNumeric(c)) number();
-                else if (isAlpha(c)) identifier();
-                else Lox.error(line, "Unexpected character.");
+            case LexerTables.SKIP: skipWhitespaces(); break;
+            case LexerTables.NEWLINE: line++; skipWhitespaces(); break;
+            case LexerTables.STRING: string(); break;
+            case LexerTables.NUMBER: number(c); break;
+            case LexerTables.TOKEN: token(c); break;
+            default: unexpected(c);
         }
     }
 
     /**
-     * Predicts if the expected token matches the next character code. If so a {@link Lexer#advance()};
+     * Runs the automaton of the operators, keywords and identifiers from the character {@code first}, and adds the token of
+     * the longest match.
      **/
-    private boolean match(char expected)
+    private void token(char first)
     {
-        if (isAtEnd()) return false;
-        if (peek() != expected) return false;
+        int state = transition(LexerTables.START, first);
+        for (int next = transition(state, peek()); next != LexerTables.DEAD; next = transition(state, peek()))
+        {
+            state = next;
+            advance();
+        }
 
-        advance();
-        return true;
+        if (state == LexerTables.COMMENT) comment();
+        else if (LexerTables.ACCEPTS[state] == TokenType.IDENTIFIER) addToken(TokenType.IDENTIFIER, intern(start, current));
+        else addToken(LexerTables.ACCEPTS[state]);
+    }
+
+    private static int transition(int state, char c)
+    {
+        if (c >= 128) return LexerTables.DEAD;
+        return LexerTables.TRANSITIONS[state * LexerTables.COLUMNS + LexerTables.CHAR_COLUMNS[c]];
     }
 //< Lexer.class::lexical-analysis
 
 
 //> Lexer.class::source-operations
     /**
-     * Advance to the next character in the {@link Lexer#source}.
+     * Advance to the next character in the {@link Lexer#buffer}.
      **/
     private void advance()
     {
@@ -133,11 +496,11 @@ public class Lexer {
     }
 
     /**
-     * Advance to the next character in the {@link Lexer#source}, and consumes it.
+     * Advance to the next character in the {@link Lexer#buffer}, and consumes it.
      **/
     private char consume()
     {
-        return source.charAt(current++);
+        return charAt(current++);
     }
 
     /**
@@ -153,49 +516,266 @@ public class Lexer {
      **/
     private char peek(int index)
     {
-        if (current + index >= source.length())
-            return '\0';
-        return source.charAt(current + index);
+        while (current + index >= limit)
+            if (!fill()) return '\0';
+        return charAt(current + index);
     }
 
     /**
-     * @return false if it didn't analyze the entire {@link Lexer#source}.
+     * @return the character at the given {@code index} of the source. A memory-mapped source returns its bytes as they are,
+     *         so every non-ASCII byte is a character above {@code 0x7F}.
+     **/
+    private char charAt(int index)
+    {
+        return bytes != null ? (char) (bytes.get(index) & 0xFF) : buffer[index];
+    }
+
+    /**
+     * @return the source between {@code from} and {@code to}.
+     **/
+    private String text(int from, int to)
+    {
+        return tokens.text(from, to);
+    }
+
+    /**
+     * @return false if it didn't analyze the entire source.
      **/
     private boolean isAtEnd()
     {
-        return current >= source.length();
+        return current >= limit && !fill();
+    }
+
+    /**
+     * Reads the next chunk of the source into the {@link Lexer#buffer}. The characters before {@link Lexer#start} are dropped,
+     * and the buffer only grows when a single lexeme does not fit in it.
+     * @return false if there is nothing left to read.
+     **/
+    private boolean fill()
+    {
+        if (reader == null) return false;
+
+        if (start > 0)
+        {
+            discarded += start;
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            current -= start;
+            start = 0;
+        }
+        if (limit == buffer.length)
+            buffer = tokens.chars = Arrays.copyOf(buffer, buffer.length * 2);
+
+        try
+        {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0)
+            {
+                reader.close();
+                reader = null;
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
     }
 //> Lexer.class::source-operations
 
 
+//> Lexer.class::bulk-scanning
+    /**
+     * Selects between skipping the whitespaces, comments and string bodies in bulk, and the scalar fallback, that reads one
+     * character at a time through {@link Lexer#peek()}. Streaming lexers always use the fallback.
+     **/
+    public void setBulkScanning(boolean bulkScanning)
+    {
+        this.bulkScanning = bulkScanning;
+    }
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long SPACES = 0x2020202020202020L;
+    private static final long TABS = 0x0909090909090909L;
+    private static final long RETURNS = 0x0D0D0D0D0D0D0D0DL;
+    private static final long QUOTES = 0x2222222222222222L;
+
+    /**
+     * Compares the 8 bytes of a {@code word} at once, with the ones of a {@code pattern} that repeats a single byte.
+     * @return the high bit of each byte equal to the pattern.
+     **/
+    private static long matches(long word, long pattern)
+    {
+        long x = word ^ pattern;
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /**
+     * @return the number of bytes before the first high bit of a {@code mask} of {@link ByteBuffer#getLong(int)}, that reads
+     *         the bytes in big-endian order.
+     **/
+    private static int leadingBytes(long mask)
+    {
+        return Long.numberOfLeadingZeros(mask) >>> 3;
+    }
+
+    /**
+     * @return the number of high bits in the first {@code count} bytes of a {@code mask}.
+     **/
+    private static int countBefore(long mask, int count)
+    {
+        return count == 0 ? 0 : Long.bitCount(mask & (-1L << (Long.SIZE - Byte.SIZE * count)));
+    }
+
+    /**
+     * Skips the whitespaces and newlines that follow the one just consumed, 8 bytes at a time for a memory-mapped source. A
+     * chunk lexer does not skip past its {@link Lexer#stop}, so it still ends at the newline of its split.
+     **/
+    private void skipWhitespaces()
+    {
+        if (!bulkScanning || reader != null) return;
+
+        int end = Math.min(limit, stop);
+        int i = current;
+        if (bytes != null)
+        {
+            for (; i + Long.BYTES <= end; i += Long.BYTES)
+            {
+                long word = bytes.getLong(i);
+                long newlines = matches(word, NEWLINES);
+                long others = ~(newlines | matches(word, SPACES) | matches(word, TABS) | matches(word, RETURNS)) & HIGH_BITS;
+                if (others != 0)
+                {
+                    int count = leadingBytes(others);
+                    line += countBefore(newlines, count);
+                    current = i + count;
+                    return;
+                }
+                line += Long.bitCount(newlines);
+            }
+            for (; i < end; i++)
+            {
+                byte b = bytes.get(i);
+                if (b == '\n') line++;
+                else if (b != ' ' && b != '\r' && b != '\t') break;
+            }
+        }
+        else
+        {
+            for (; i < end; i++)
+            {
+                char c = buffer[i];
+                if (c == '\n') line++;
+                else if (c != ' ' && c != '\r' && c != '\t') break;
+            }
+        }
+        current = i;
+    }
+
+    /**
+     * @return the offset of the next newline from {@code from}, or the end of the source.
+     **/
+    private int indexOfNewline(int from)
+    {
+        int i = from;
+        if (bytes != null)
+        {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES)
+            {
+                long newlines = matches(bytes.getLong(i), NEWLINES);
+                if (newlines != 0) return i + leadingBytes(newlines);
+            }
+            while (i < limit && bytes.get(i) != '\n') i++;
+        }
+        else
+        {
+            while (i < limit && buffer[i] != '\n') i++;
+        }
+        return i;
+    }
+
+    /**
+     * Moves to the closing quote of a string, or the end of the source, counting the newlines of its body.
+     **/
+    private void skipStringBody()
+    {
+        int i = current;
+        if (bytes != null)
+        {
+            for (; i + Long.BYTES <= limit; i += Long.BYTES)
+            {
+                long word = bytes.getLong(i);
+                long newlines = matches(word, NEWLINES);
+                long quotes = matches(word, QUOTES);
+                if (quotes != 0)
+                {
+                    int count = leadingBytes(quotes);
+                    line += countBefore(newlines, count);
+                    current = i + count;
+                    return;
+                }
+                line += Long.bitCount(newlines);
+            }
+            for (; i < limit; i++)
+            {
+                byte b = bytes.get(i);
+                if (b == '"') break;
+                if (b == '\n') line++;
+            }
+        }
+        else
+        {
+            for (; i < limit; i++)
+            {
+                char c = buffer[i];
+                if (c == '"') break;
+                if (c == '\n') line++;
+            }
+        }
+        current = i;
+    }
+//< Lexer.class::bulk-scanning
+
+
 //< Lexer.class::grammars-checking
     public boolean isNumeric(char c)
     {
-        return c >= '0' && c <= '9';
+        return c < 128 && (LexerTables.FLAGS[c] & LexerTables.DIGIT) != 0;
     }
 
     public boolean isAlpha(char c)
     {
-        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+        return c < 128 && (LexerTables.FLAGS[c] & LexerTables.ALPHA) != 0;
     }
 
     public boolean isAlphaNumeric(char c)
     {
-        return (isAlpha(c) || isNumeric(c));
+        return c < 128 && LexerTables.FLAGS[c] != 0;
     }
 //> Lexer.class::grammars-checking
 
 
 //< Lexer.class::classifiers
     /**
-     * Parse a comment.
+     * Parse a comment, once its {@code //} has been consumed.
      **/
     private void comment()
     {
-        if (match('/'))
-            while(peek() != '\n' && !isAtEnd()) advance();
-        else
-            addToken(TokenType.SLASH);
+        if (bulkScanning && reader == null)
+        {
+            current = indexOfNewline(current);
+            return;
+        }
+
+        while(peek() != '\n' && !isAtEnd())
+        {
+            advance();
+            start = current; // comments are never emitted, so a streaming lexer doesn't have to keep them.
+        }
     }
 
     /**
@@ -203,7 +783,9 @@ public class Lexer {
      **/
     private void string()
     {
-        while (peek() != '"' && !isAtEnd())
+        if (bulkScanning && reader == null)
+            skipStringBody();
+        else while (peek() != '"' && !isAtEnd())
         {
             if (peek() == '\n') line++;
             advance();
@@ -211,51 +793,183 @@ public class Lexer {
 
         if (isAtEnd())
         {
-            Lox.error(line, "Unterminated string.");
+            error(line, "Unterminated string.");
             return;
         }
 
         advance();
-
-        String value = source.substring(start + 1, current - 1);
-        addToken(TokenType.STRING, value);
+        addToken(TokenType.STRING, intern(start + 1, current - 1));
     }
 
-    private void number()
+    /**
+     * Parse a number, accumulating its digits while they are scanned. The value is exact as long as the digits fit in
+     * {@link Lexer#EXACT_MANTISSA}, and the fraction has at most 22 digits : both the digits and the power of ten are then exact
+     * doubles, and a single division rounds correctly. Only the longer literals are parsed by {@link Double#parseDouble(String)}.
+     * @param first the digit consumed by {@link Lexer#scanToken()}.
+     **/
+    private void number(char first)
     {
-        while (isNumeric(peek())) advance();
+        long mantissa = first - '0';
+        boolean overflow = false;
+        int scale = 0;
+
+        for (char c = peek(); isNumeric(c); c = peek())
+        {
+            advance();
+            if (mantissa > (Long.MAX_VALUE - 9) / 10) overflow = true;
+            else mantissa = mantissa * 10 + (c - '0');
+        }
 
+        boolean integral = true;
         if (peek() == '.' && isNumeric(peek(1)))
         {
             advance();
-            while (isNumeric(peek())) advance();
+            integral = false;
+            for (char c = peek(); isNumeric(c); c = peek())
+            {
+                advance();
+                if (mantissa > (Long.MAX_VALUE - 9) / 10) overflow = true;
+                else mantissa = mantissa * 10 + (c - '0');
+                scale++;
+            }
         }
 
-        addToken(TokenType.NUMBER, Double.parseDouble(source.substring(start, current)));
+        if (overflow || mantissa > EXACT_MANTISSA || scale >= POWERS_OF_TEN.length)
+            addToken(Double.parseDouble(text(start, current)), false);
+        else if (integral)
+            addToken((double) mantissa, true);
+        else
+            addToken(mantissa / POWERS_OF_TEN[scale], false);
     }
 
-    private void identifier()
-    {
-        while (isAlphaNumeric(peek())) advance();
+    /**
+     * Greatest integer, under which every integer is an exact double.
+     **/
+    private static final long EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten that are exact doubles.
+     **/
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
-        if (type == null) type = TokenType.IDENTIFIER;
-        addToken(type);
-    }
 //> Lexer.class::classifiers
 
 
 //> Lexer.class::utils
+    /**
+     * An error kept by a chunk lexer.
+     **/
+    private static final class ChunkError
+    {
+        final int line;
+        final String message;
+
+        ChunkError(int line, String message)
+        {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    private void error(int line, String message)
+    {
+        if (errors != null) errors.add(new ChunkError(line, message));
+        else Lox.error(line, message);
+    }
+
+    /**
+     * Reports an unexpected character. The char path reports every UTF-16 char, so a multibyte UTF-8 sequence of a
+     * memory-mapped source is skipped entirely, and reported once per char it decodes to.
+     **/
+    private void unexpected(char c)
+    {
+        int chars = 1;
+        if (bytes != null && c > 0x7F)
+        {
+            int length = c >= 0xF0 ? 4 : c >= 0xE0 ? 3 : 2;
+            current += length - 1;
+            if (length == 4) chars = 2;
+        }
+
+        for (int i = 0; i < chars; i++)
+            error(line, "Unexpected character.");
+    }
+
     private void addToken(TokenType type)
     {
-        addToken(type, null);
+        tokens.add(type, start, current - start, line);
     }
 
-    private void addToken(TokenType type, Object literal)
+    private void addToken(double number, boolean integral)
     {
-        String lexeme = source.substring(start, current);
-        tokens.add(new Token(type, lexeme, literal, line));
+        tokens.add(TokenType.NUMBER, start, current - start, line, number, integral);
+    }
+
+    private void addToken(TokenType type, int symbol)
+    {
+        tokens.add(type, start, current - start, line, 0, symbol);
+    }
+
+    /**
+     * @return the symbol ID of the source between {@code from} and {@code to}.
+     **/
+    private int intern(int from, int to)
+    {
+        return bytes != null ? symbols.intern(bytes, from, to) : symbols.intern(buffer, from, to);
+    }
+
+
+    private static final int ASCII = 0;
+    private static final int UTF_8 = 1;
+    private static final int UNKNOWN = 2;
+
+    /**
+     * @return {@link Lexer#ASCII} if every byte is below {@code 0x80}, {@link Lexer#UTF_8} if the bytes are well-formed
+     *         UTF-8, and {@link Lexer#UNKNOWN} otherwise.
+     **/
+    private static int encodingOf(ByteBuffer bytes)
+    {
+        int length = bytes.limit();
+        int i = 0;
+
+        // Checks 8 bytes at once, until the first non-ASCII one.
+        while (i + Long.BYTES <= length && (bytes.getLong(i) & 0x8080808080808080L) == 0)
+            i += Long.BYTES;
+
+        int encoding = ASCII;
+        while (i < length)
+        {
+            int b = bytes.get(i) & 0xFF;
+            if (b < 0x80) { i++; continue; }
+
+            encoding = UTF_8;
+            int size, min = 0x80, max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) size = 2;
+            else if (b >= 0xE0 && b <= 0xEF)
+            {
+                size = 3;
+                if (b == 0xE0) min = 0xA0;      // overlong
+                else if (b == 0xED) max = 0x9F; // surrogates
+            }
+            else if (b >= 0xF0 && b <= 0xF4)
+            {
+                size = 4;
+                if (b == 0xF0) min = 0x90;      // overlong
+                else if (b == 0xF4) max = 0x8F; // above U+10FFFF
+            }
+            else return UNKNOWN;
+
+            if (i + size > length) return UNKNOWN;
+            int second = bytes.get(i + 1) & 0xFF;
+            if (second < min || second > max) return UNKNOWN;
+            for (int k = 2; k < size; k++)
+                if ((bytes.get(i + k) & 0xC0) != 0x80) return UNKNOWN;
+            i += size;
+        }
+        return encoding;
     }
 //< Lexer.class::utils
 }
@@ -1,27 +1,35 @@
 package codelab;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.charset.Charset;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import lang.RuntimeError;
+import lang.StatsRunner;
 
 public class Lox {
-//> Lox.class::fields
-    /**
-     * The variable {@code hadError} will be set to true, if an error occurred during compilation.
-     **/
-    static boolean hadError = false;
-//< Lox.class::fields
-
-
 //> Lox.class::entry-point
-    public static void main(String[] args) throws IOException {
-        if (args.length > 1)
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 2 && args.length <= 3 && args[0].equals("--stats"))
+            runStats(Paths.get(args[1]), args.length == 3 ? Paths.get(args[2]) : null);
+        else if (args.length == 3 && args[0].equals("--cache"))
+            runFile(args[2], Paths.get(args[1]));
+        else if (args.length >= 2 && args.length <= 3 && args[0].equals("--batch") && parallelism(args) > 0)
+            runBatch(Paths.get(args[1]), parallelism(args));
+        else if (args.length >= 3 && args.length <= 4 && args[0].equals("--dump")
+                && (args[1].equals("text") || args[1].equals("binary")))
+            runDump(args[1].equals("binary"), args[2], args.length == 4 ? Paths.get(args[3]) : null);
+        else if (args.length > 1)
         {
-            System.out.println("Usage: jlox [script]");
+            System.out.println("Usage: jlox [script] | jlox --stats <script> [collapsed stacks]"
+                    + " | jlox --cache <directory> <script> | jlox --batch <directory> [parallelism]"
+                    + " | jlox --dump text|binary <script> [output]");
             System.exit(64);
         }
         else if (args.length == 1)
@@ -29,20 +37,108 @@ public class Lox {
         else
             runPrompt();
     }
+
+    /**
+     * @return the parallelism of a {@code --batch} invocation, the number of processors by default, or {@code 0} if it is not
+     *         a number, to print the usage.
+     **/
+    private static int parallelism(String[] args)
+    {
+        if (args.length < 3) return Runtime.getRuntime().availableProcessors();
+        try
+        {
+            return Integer.parseInt(args[2]);
+        }
+        catch (NumberFormatException exception)
+        {
+            return 0;
+        }
+    }
 //< Lox.class::entry-point
 
 
 //> Lox.class::runnables
     /**
-     * Reads a file, and executes it with the {@link Lox#run(String)} method.
+     * Lexes a file through the {@link Lox#run(Lexer)} method, without reading it entirely in memory.
      * @param path The absolute path of the file.
+     * @see Lexer#ofFile(java.nio.file.Path)
      **/
     private static void runFile(String path) throws IOException
     {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
+        run(Lexer.ofFile(Paths.get(path)));
+
+        if (LoxContext.CONSOLE.hadError()) System.exit(65);
+        if (LoxContext.CONSOLE.hadRuntimeError()) System.exit(70);
+    }
+
+    /**
+     * Runs a file phase by phase through the {@link StatsRunner}, and exits with the same status as {@link Lox#runFile(String)}
+     * on an error.
+     **/
+    private static void runStats(Path path, Path collapsed) throws IOException
+    {
+        StatsRunner.run(path, collapsed);
+
+        if (LoxContext.CONSOLE.hadError()) System.exit(65);
+        if (LoxContext.CONSOLE.hadRuntimeError()) System.exit(70);
+    }
+
+    /**
+     * Lexes a file through a {@link TokenCache}, that memory-maps its tokens if it has already been lexed.
+     **/
+    private static void runFile(String path, Path cache) throws IOException
+    {
+        TokenBuffer tokens = new TokenCache(cache).load(Paths.get(path));
+        if (tokens == null) runFile(path);
+        else
+        {
+            Writer out = output();
+            TokenDump.writeText(tokens, out);
+            out.flush();
+        }
+
+        if (LoxContext.CONSOLE.hadError()) System.exit(65);
+    }
+
+    /**
+     * Dumps the tokens of a file in the text or binary format of {@link TokenDump}, to the standard output or the given file.
+     **/
+    private static void runDump(boolean binary, String path, Path output) throws IOException
+    {
+        Lexer lexer = Lexer.ofFile(Paths.get(path));
+        if (binary)
+        {
+            if (output == null) TokenDump.writeBinary(lexer, LoxContext.current().out());
+            else try (OutputStream out = Files.newOutputStream(output))
+            {
+                TokenDump.writeBinary(lexer, out);
+            }
+        }
+        else if (output == null)
+        {
+            Writer out = output();
+            TokenDump.writeText(lexer, out);
+            out.flush();
+        }
+        else try (Writer out = Files.newBufferedWriter(output))
+        {
+            TokenDump.writeText(lexer, out);
+        }
+
+        if (LoxContext.CONSOLE.hadError()) System.exit(65);
+    }
+
+    /**
+     * Validates every {@code .lox} file of a directory concurrently, and prints their aggregated diagnostics.
+     * @see BatchRunner
+     **/
+    private static void runBatch(Path directory, int parallelism) throws IOException, InterruptedException
+    {
+        BatchRunner.Result result = new BatchRunner(parallelism).run(directory);
+        result.diagnostics.forEach(System.err::println);
+        System.out.println(result);
 
-        if (hadError) System.exit(65);
+        if (result.failedFiles > 0) System.exit(65);
     }
 
     /**
@@ -59,41 +155,62 @@ public class Lox {
             String line = reader.readLine();
             if (line == null) break;
             run(line);
-            hadError = false;
+            LoxContext.CONSOLE.reset();
         }
     }
 
     /**
      * Scan the source code, to create a list of tokens.
      **/
-    private static void run(String source)
+    private static void run(String source) throws IOException
     {
-        Lexer scanner = new Lexer(source);
-        List<Token> tokens = scanner.scanTokens();
+        run(new Lexer(source));
+    }
 
-        tokens.forEach(System.out::println);
+    /**
+     * Prints the tokens of the {@code scanner} through a buffer, flushed once they have all been written.
+     **/
+    private static void run(Lexer scanner) throws IOException
+    {
+        Writer out = output();
+        TokenDump.writeText(scanner, out);
+        out.flush();
+    }
+
+    /**
+     * @return a buffered writer on the output of the {@link LoxContext#current()} session, to flush but not to close.
+     **/
+    private static Writer output()
+    {
+        return new BufferedWriter(new OutputStreamWriter(LoxContext.current().out()), 1 << 16);
     }
 //> Lox.class::runnables
 
 
 //> Lox.class::error-prompt
     /**
-     * Display the error message with a given line.
+     * Display the error message with a given line, in the {@link LoxContext#current()} session.
      **/
     static void error(int line, String message)
     {
-        report(line, "", message);
+        LoxContext.current().report(line, "", message);
+    }
+
+    /**
+     * Display the error message at a given token, as {@code [line 7] Error#at '+': ...} or {@code Error#at end}.
+     **/
+    public static void error(Token token, String message)
+    {
+        if (token.type == TokenType.EOF) LoxContext.current().report(token.line, "at end", message);
+        else LoxContext.current().report(token.line, "at '" + token.lexeme + "'", message);
     }
 
     /**
-     * <p>Report the error for a given type with the corresponding line.</p>
-     * <p><strong>Example :</strong></p>
-     * <p>{@code [line 7] Error#Overflow : ...}</p>
+     * Display an error raised while evaluating the code, as {@code [line 7] Error#Runtime: ...}.
      **/
-    private static void report(int line, String where, String message)
+    public static void runtimeError(RuntimeError error)
     {
-        System.err.println("[line " + line + "] Error#" + where + ": " + message);
-        hadError = true;
+        LoxContext.current().reportRuntime(error.token.line, error.getMessage());
     }
 //> Lox.class::error-prompt
 }
@@ -0,0 +1,162 @@
+package codelab;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * <p>State of a Lox session : its error flags, the diagnostics it reported, and the sink of its output.</p>
+ * <p>The static {@link Lox#error(Token, String)} methods report to the {@link LoxContext#current()} context of the calling
+ * thread, set by {@link LoxContext#call(Callable)} for the duration of a session. Outside any session, they report to the
+ * {@link LoxContext#CONSOLE} context, so that several sessions can lex and run scripts concurrently in one JVM.</p>
+ **/
+public class LoxContext {
+//> LoxContext.class::fields
+    /**
+     * Default context of the command line, printing to the standard streams.
+     **/
+    public static final LoxContext CONSOLE = new LoxContext(System.out, System.err);
+
+    private static final ThreadLocal<LoxContext> CURRENT = ThreadLocal.withInitial(() -> CONSOLE);
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    /**
+     * Diagnostics reported so far, only collected when they are not printed, so that a long run on the console keeps a
+     * constant footprint.
+     **/
+    private final List<String> diagnostics = new ArrayList<>();
+    private int diagnosticCount = 0;
+
+    /**
+     * Set to true, if an error occurred during compilation.
+     **/
+    private boolean hadError = false;
+
+    /**
+     * Set to true, if an error occurred during evaluation.
+     **/
+    private boolean hadRuntimeError = false;
+//< LoxContext.class::fields
+
+
+//> LoxContext.class::constructors
+    /**
+     * @param out the sink of the output of the scripts.
+     * @param err the stream printing the diagnostics as they are reported, or {@code null} to only collect them.
+     **/
+    public LoxContext(PrintStream out, PrintStream err)
+    {
+        this.out = out;
+        this.err = err;
+    }
+//< LoxContext.class::constructors
+
+
+//> LoxContext.class::sessions
+    /**
+     * @return the context of the session running on the calling thread, or {@link LoxContext#CONSOLE}.
+     **/
+    public static LoxContext current()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the {@code session} with this context as the {@link LoxContext#current()} one of the calling thread.
+     **/
+    public <T> T call(Callable<T> session) throws Exception
+    {
+        LoxContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try
+        {
+            return session.call();
+        }
+        finally
+        {
+            CURRENT.set(previous);
+        }
+    }
+//< LoxContext.class::sessions
+
+
+//> LoxContext.class::accessors
+    public PrintStream out()
+    {
+        return out;
+    }
+
+    public synchronized boolean hadError()
+    {
+        return hadError;
+    }
+
+    public synchronized boolean hadRuntimeError()
+    {
+        return hadRuntimeError;
+    }
+
+    /**
+     * @return the diagnostics reported so far, as {@code [line 7] Error#at '+': ...}. Always empty for a context printing them
+     *         to its {@code err} stream.
+     **/
+    public synchronized List<String> diagnostics()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+
+    /**
+     * @return the number of diagnostics reported so far.
+     **/
+    synchronized int diagnosticCount()
+    {
+        return diagnosticCount;
+    }
+
+    /**
+     * Clears the error flags and the diagnostics, e.g. between two lines of the prompt, so that a long session does not
+     * accumulate them.
+     **/
+    public synchronized void reset()
+    {
+        hadError = false;
+        hadRuntimeError = false;
+        diagnostics.clear();
+        diagnosticCount = 0;
+    }
+//< LoxContext.class::accessors
+
+
+//> LoxContext.class::error-prompt
+    /**
+     * <p>Report the error for a given type with the corresponding line.</p>
+     * <p><strong>Example :</strong></p>
+     * <p>{@code [line 7] Error#Overflow : ...}</p>
+     **/
+    synchronized void report(int line, String where, String message)
+    {
+        diagnose("[line " + line + "] Error#" + where + ": " + message);
+        hadError = true;
+    }
+
+    /**
+     * Report an error raised while evaluating the code, as {@code [line 7] Error#Runtime: ...}.
+     **/
+    synchronized void reportRuntime(int line, String message)
+    {
+        diagnose("[line " + line + "] Error#Runtime: " + message);
+        hadRuntimeError = true;
+    }
+
+    private void diagnose(String diagnostic)
+    {
+        diagnosticCount++;
+        if (err != null) err.println(diagnostic);
+        else diagnostics.add(diagnostic);
+    }
+//< LoxContext.class::error-prompt
+}
@@ -0,0 +1,238 @@
+package codelab;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>Interns the text of the identifiers and string literals into dense symbol IDs, starting at {@code 0}. Two tokens with
+ * the same text get the same ID, so the later phases can compare them with {@code ==}, and index arrays with them.</p>
+ * <p>The table is an open-addressing hash, keyed directly on a slice of the source. The characters of a new symbol are copied
+ * in a single pool, and its {@code String} is only created on the first call to {@link SymbolTable#name(int)}.</p>
+ **/
+public class SymbolTable {
+//> SymbolTable.class::constructors
+    public SymbolTable()
+    {
+        slots = new int[64];
+        pool = new char[1024];
+        offsets = new int[32];
+        lengths = new int[32];
+        hashes = new int[32];
+        names = new String[32];
+    }
+//< SymbolTable.class::constructors
+
+
+//> SymbolTable.class::fields
+    /**
+     * Symbol ID of the tokens that are neither identifiers nor string literals.
+     **/
+    public static final int NONE = -1;
+
+    /**
+     * Open-addressing hash table of {@code symbol + 1}, {@code 0} being an empty slot. Its length is a power of two, and it
+     * is kept at most half full.
+     **/
+    private int[] slots;
+
+    /**
+     * Characters of every symbol, one after the other.
+     **/
+    private char[] pool;
+    private int poolSize = 0;
+
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+
+    /**
+     * Names of the symbols, created lazily.
+     **/
+    private String[] names;
+
+    private int size = 0;
+//< SymbolTable.class::fields
+
+
+//> SymbolTable.class::interning
+    /**
+     * @return the symbol ID of the characters of {@code source} between {@code from} and {@code to}.
+     **/
+    public int intern(char[] source, int from, int to)
+    {
+        int hash = 0;
+        for (int i = from; i < to; i++)
+            hash = 31 * hash + source[i];
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask)
+        {
+            int symbol = slots[slot] - 1;
+            if (symbol < 0)
+            {
+                symbol = add(hash, to - from, slot);
+                System.arraycopy(source, from, pool, offsets[symbol], to - from);
+                return symbol;
+            }
+            if (hashes[symbol] == hash && Arrays.equals(pool, offsets[symbol], offsets[symbol] + lengths[symbol], source, from, to))
+                return symbol;
+        }
+    }
+
+    /**
+     * @return the symbol ID of the UTF-8 encoded bytes of {@code source} between {@code from} and {@code to}. The bytes are
+     *         compared as they are while they are ASCII, and decoded otherwise.
+     **/
+    public int intern(ByteBuffer source, int from, int to)
+    {
+        int hash = 0;
+        for (int i = from; i < to; i++)
+        {
+            byte b = source.get(i);
+            if (b < 0)
+            {
+                byte[] bytes = new byte[to - from];
+                source.get(from, bytes);
+                return intern(new String(bytes, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + b;
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask)
+        {
+            int symbol = slots[slot] - 1;
+            if (symbol < 0)
+            {
+                symbol = add(hash, to - from, slot);
+                for (int i = from, offset = offsets[symbol]; i < to; i++)
+                    pool[offset++] = (char) source.get(i);
+                return symbol;
+            }
+            if (hashes[symbol] == hash && equals(symbol, source, from, to))
+                return symbol;
+        }
+    }
+
+    /**
+     * @return the symbol ID of the text of a {@code symbol} of another table.
+     **/
+    int intern(SymbolTable other, int symbol)
+    {
+        return intern(other.pool, other.offsets[symbol], other.offsets[symbol] + other.lengths[symbol]);
+    }
+
+    /**
+     * @return the symbol ID of the given {@code text}.
+     **/
+    public int intern(String text)
+    {
+        return intern(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * @return the symbol ID of the given {@code text}, or {@link SymbolTable#NONE} if it has never been interned.
+     **/
+    public int find(String text)
+    {
+        int hash = text.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask)
+        {
+            int symbol = slots[slot] - 1;
+            if (symbol < 0) return NONE;
+            if (hashes[symbol] == hash && equals(symbol, text))
+                return symbol;
+        }
+    }
+//< SymbolTable.class::interning
+
+
+//> SymbolTable.class::accessors
+    /**
+     * @return the text of the symbol.
+     **/
+    public String name(int symbol)
+    {
+        String name = names[symbol];
+        if (name == null)
+            names[symbol] = name = new String(pool, offsets[symbol], lengths[symbol]);
+        return name;
+    }
+
+    /**
+     * @return the number of symbols, every ID being lower.
+     **/
+    public int size()
+    {
+        return size;
+    }
+//< SymbolTable.class::accessors
+
+
+//> SymbolTable.class::utils
+    /**
+     * Spreads the bits of the {@code String}-compatible hash, so that close hashes don't fill consecutive slots.
+     **/
+    private static int mix(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean equals(int symbol, String text)
+    {
+        if (lengths[symbol] != text.length()) return false;
+        for (int i = 0, offset = offsets[symbol]; i < text.length(); i++)
+            if (pool[offset++] != text.charAt(i)) return false;
+        return true;
+    }
+
+    private boolean equals(int symbol, ByteBuffer source, int from, int to)
+    {
+        if (lengths[symbol] != to - from) return false;
+        for (int i = from, offset = offsets[symbol]; i < to; i++)
+            if (pool[offset++] != source.get(i)) return false;
+        return true;
+    }
+
+    /**
+     * Registers a new symbol of {@code length} characters in the given empty {@code slot}, and reserves its characters in the
+     * {@link SymbolTable#pool}.
+     **/
+    private int add(int hash, int length, int slot)
+    {
+        if (size == offsets.length)
+        {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        if (poolSize + length > pool.length)
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+
+        int symbol = size++;
+        offsets[symbol] = poolSize;
+        lengths[symbol] = length;
+        hashes[symbol] = hash;
+        poolSize += length;
+
+        slots[slot] = symbol + 1;
+        if (size * 2 > slots.length) rehash();
+        return symbol;
+    }
+
+    private void rehash()
+    {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++)
+        {
+            int slot = mix(hashes[symbol]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = symbol + 1;
+        }
+    }
+//< SymbolTable.class::utils
+}
@@ -3,11 +3,18 @@ package codelab;
 public class Token {
 //> :class-constructors
     public Token(TokenType type, String lexeme, Object literal, int line)
+    {
+        this(type, lexeme, literal, line, SymbolTable.NONE, false);
+    }
+
+    public Token(TokenType type, String lexeme, Object literal, int line, int symbol, boolean integral)
     {
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
+        this.symbol = symbol;
+        this.integral = integral;
     }
 //< :class-constructors
 
@@ -26,6 +33,17 @@ public class Token {
      * The line at which the token appear in the code.
      **/
     public final int line;
+
+    /**
+     * ID of the text of an {@link TokenType#IDENTIFIER} or a {@link TokenType#STRING} literal in the {@link SymbolTable} of the
+     * lexer, {@link SymbolTable#NONE} for the other tokens.
+     **/
+    public final int symbol;
+
+    /**
+     * True for a {@link TokenType#NUMBER} literal without a fraction, whose {@code Double} literal holds an exact {@code long}.
+     **/
+    public final boolean integral;
 //< :class-fields
 
 
@@ -0,0 +1,458 @@
+package codelab;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * <p>Compact storage of the tokens scanned by a {@link Lexer}. Instead of a {@link Token} per lexeme, the type ordinal, start
+ * offset, length and line of each token are stored in parallel arrays, and the value of the {@link TokenType#NUMBER} literals in
+ * a separate {@code double[]}.</p>
+ * <p>The lexemes and literals are only materialised when they are asked for, by {@link TokenBuffer#lexeme(int)},
+ * {@link TokenBuffer#literal(int)} or the {@link Token} views of {@link TokenBuffer#token(int)} and
+ * {@link TokenBuffer#asList()}.</p>
+ **/
+public class TokenBuffer {
+//> TokenBuffer.class::constructors
+    TokenBuffer(char[] chars, SymbolTable symbolTable, int capacity)
+    {
+        this(symbolTable, capacity);
+        this.chars = chars;
+    }
+
+    TokenBuffer(ByteBuffer bytes, SymbolTable symbolTable, int capacity)
+    {
+        this(symbolTable, capacity);
+        this.bytes = bytes;
+    }
+
+    private TokenBuffer(SymbolTable symbolTable, int capacity)
+    {
+        this.symbolTable = symbolTable;
+        capacity = Math.max(capacity, 16);
+        types = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        numbers = new double[capacity];
+        symbols = new int[capacity];
+    }
+//< TokenBuffer.class::constructors
+
+
+//> TokenBuffer.class::fields
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int IDENTIFIER = TokenType.IDENTIFIER.ordinal();
+    private static final int STRING = TokenType.STRING.ordinal();
+
+    /**
+     * Flag set on the type of the integral {@link TokenType#NUMBER} literals.
+     **/
+    private static final int INTEGRAL = 1 << 8;
+    private static final int TYPE = INTEGRAL - 1;
+
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+
+    /**
+     * Values of the {@link TokenType#NUMBER} literals, left to {@code 0} for the other tokens.
+     **/
+    private double[] numbers;
+
+    /**
+     * IDs of the identifiers and string literals in the {@link TokenBuffer#symbolTable}.
+     **/
+    private int[] symbols;
+    private final SymbolTable symbolTable;
+
+    private int size = 0;
+
+    /**
+     * Source the offsets refer to, either {@link TokenBuffer#chars} or UTF-8 encoded {@link TokenBuffer#bytes}.
+     **/
+    char[] chars;
+    private ByteBuffer bytes;
+
+    /**
+     * Reused to copy the lexemes out of the {@link TokenBuffer#bytes}, before they are decoded.
+     **/
+    private byte[] scratch;
+//< TokenBuffer.class::fields
+
+
+//> TokenBuffer.class::accessors
+    /**
+     * @return the number of tokens.
+     **/
+    public int size()
+    {
+        return size;
+    }
+
+    public TokenType type(int index)
+    {
+        return TYPES[types[index] & TYPE];
+    }
+
+    /**
+     * @return the offset of the first character of the token, counted in bytes for a memory-mapped source.
+     **/
+    public int start(int index)
+    {
+        return starts[index];
+    }
+
+    public int length(int index)
+    {
+        return lengths[index];
+    }
+
+    /**
+     * The line at which the token appear in the code.
+     **/
+    public int line(int index)
+    {
+        return lines[index];
+    }
+
+    /**
+     * @return the value of a {@link TokenType#NUMBER} literal, without boxing it.
+     **/
+    public double number(int index)
+    {
+        return numbers[index];
+    }
+
+    /**
+     * @return true if the token is a {@link TokenType#NUMBER} literal without a fraction, whose value is an exact
+     *         {@code long} : the evaluation can then stay in integer arithmetic.
+     **/
+    public boolean isIntegral(int index)
+    {
+        return (types[index] & INTEGRAL) != 0;
+    }
+
+    /**
+     * @return the value of an {@link TokenBuffer#isIntegral(int)} literal.
+     **/
+    public long integer(int index)
+    {
+        return (long) numbers[index];
+    }
+
+    /**
+     * @return the ID of an {@link TokenType#IDENTIFIER} or a {@link TokenType#STRING} literal, {@link SymbolTable#NONE} for
+     *         the other tokens.
+     **/
+    public int symbol(int index)
+    {
+        return symbols[index];
+    }
+
+    /**
+     * @return the symbol table of the {@link TokenBuffer#symbol(int)} IDs.
+     **/
+    public SymbolTable symbolTable()
+    {
+        return symbolTable;
+    }
+
+    public String lexeme(int index)
+    {
+        if (types[index] == IDENTIFIER) return symbolTable.name(symbols[index]);
+        return text(starts[index], starts[index] + lengths[index]);
+    }
+
+    /**
+     * @return the value of a {@link TokenType#STRING} or {@link TokenType#NUMBER} literal, {@code null} for the other tokens.
+     **/
+    public Object literal(int index)
+    {
+        switch (type(index))
+        {
+            case STRING: return symbolTable.name(symbols[index]);
+            case NUMBER: return numbers[index];
+            default: return null;
+        }
+    }
+//< TokenBuffer.class::accessors
+
+
+//> TokenBuffer.class::views
+    /**
+     * @return a new {@link Token} holding the token at the given index.
+     **/
+    public Token token(int index)
+    {
+        return new Token(type(index), lexeme(index), literal(index), lines[index], symbols[index], isIntegral(index));
+    }
+
+    /**
+     * @return a new {@link Token} holding the token at the given index, as if it was at the given {@code start} and
+     *         {@code line}.
+     **/
+    Token token(int index, int start, int line)
+    {
+        String lexeme = types[index] == IDENTIFIER ? symbolTable.name(symbols[index]) : text(start, start + lengths[index]);
+        return new Token(type(index), lexeme, literal(index), line, symbols[index], isIntegral(index));
+    }
+
+    /**
+     * Writes the token at the given index as {@link Token#toString()} would, without materialising the {@link Token}, nor its
+     * lexeme for an in-memory source.
+     **/
+    void write(int index, Writer out) throws IOException
+    {
+        out.write(TYPES[types[index] & TYPE].name());
+        out.write(" \"");
+        if (types[index] == IDENTIFIER) out.write(symbolTable.name(symbols[index]));
+        else if (bytes == null) out.write(chars, starts[index], lengths[index]);
+        else out.write(text(starts[index], starts[index] + lengths[index]));
+        out.write("\" ");
+        switch (type(index))
+        {
+            case STRING: out.write(symbolTable.name(symbols[index])); break;
+            case NUMBER: out.write(Double.toString(numbers[index])); break;
+            default: out.write("null");
+        }
+        out.write('\n');
+    }
+
+    /**
+     * @return a read-only list of the tokens, that materialises a {@link Token} on every {@link List#get(int)}.
+     **/
+    public List<Token> asList()
+    {
+        return new TokenList();
+    }
+
+    private class TokenList extends AbstractList<Token> implements RandomAccess
+    {
+        @Override
+        public Token get(int index)
+        {
+            return token(Objects.checkIndex(index, size));
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+//< TokenBuffer.class::views
+
+
+//> TokenBuffer.class::lexer-operations
+    void add(TokenType type, int start, int length, int line)
+    {
+        add(type, start, length, line, 0, SymbolTable.NONE);
+    }
+
+    void add(TokenType type, int start, int length, int line, double number, boolean integral)
+    {
+        add(type, start, length, line, number, SymbolTable.NONE);
+        if (integral) types[size - 1] |= INTEGRAL;
+    }
+
+    void add(TokenType type, int start, int length, int line, double number, int symbol)
+    {
+        if (size == types.length) grow();
+
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        numbers[size] = number;
+        symbols[size] = symbol;
+        size++;
+    }
+
+    /**
+     * Copies the token at {@code index} of {@code from}, moved to the given {@code start} and {@code line}.
+     **/
+    void add(TokenBuffer from, int index, int start, int line)
+    {
+        if (size == types.length) grow();
+
+        types[size] = from.types[index];
+        starts[size] = start;
+        lengths[size] = from.lengths[index];
+        lines[size] = line;
+        numbers[size] = from.numbers[index];
+        symbols[size] = from.symbols[index];
+        size++;
+    }
+
+    /**
+     * Appends all the tokens of {@code from}, with their lines moved by {@code lineOffset}, and their symbols mapped through
+     * {@code symbolMap}.
+     **/
+    void append(TokenBuffer from, int lineOffset, int[] symbolMap)
+    {
+        while (size + from.size > types.length) grow();
+
+        System.arraycopy(from.types, 0, types, size, from.size);
+        System.arraycopy(from.starts, 0, starts, size, from.size);
+        System.arraycopy(from.lengths, 0, lengths, size, from.size);
+        System.arraycopy(from.numbers, 0, numbers, size, from.size);
+        for (int i = 0; i < from.size; i++)
+        {
+            lines[size + i] = from.lines[i] + lineOffset;
+            symbols[size + i] = from.symbols[i] == SymbolTable.NONE ? SymbolTable.NONE : symbolMap[from.symbols[i]];
+        }
+        size += from.size;
+    }
+
+    /**
+     * @return true if the token at {@code index} of {@code other} has the same type and length as the one at {@code index}.
+     **/
+    boolean sameKind(int index, TokenBuffer other, int otherIndex)
+    {
+        return types[index] == other.types[otherIndex] && lengths[index] == other.lengths[otherIndex];
+    }
+
+    void removeLast()
+    {
+        size--;
+    }
+
+    void clear()
+    {
+        size = 0;
+    }
+
+    private void grow()
+    {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+    }
+
+    /**
+     * @return the source between {@code from} and {@code to}, decoded as UTF-8 for a memory-mapped source.
+     **/
+    String text(int from, int to)
+    {
+        if (bytes == null)
+            return new String(chars, from, to - from);
+
+        if (scratch == null || scratch.length < to - from)
+            scratch = new byte[Math.max(to - from, 64)];
+        bytes.get(from, scratch, 0, to - from);
+        return new String(scratch, 0, to - from, StandardCharsets.UTF_8);
+    }
+//< TokenBuffer.class::lexer-operations
+
+
+//> TokenBuffer.class::serialization
+    /**
+     * @return the number of bytes written by {@link TokenBuffer#writeTo(ByteBuffer)}.
+     **/
+    int serializedSize()
+    {
+        long bytes = 8 + size * 26L;
+        for (int symbol = 0; symbol < symbolTable.size(); symbol++)
+            bytes += 4 + 2L * symbolTable.name(symbol).length();
+        if (bytes > Integer.MAX_VALUE) throw new IllegalStateException("Too many tokens to serialize.");
+        return (int) bytes;
+    }
+
+    /**
+     * Writes the symbols, then the tokens column by column : their types on a {@code short}, their starts, lengths, lines and
+     * symbols on an {@code int}, and their numbers on a {@code double}. Their source is not written.
+     **/
+    void writeTo(ByteBuffer out)
+    {
+        out.putInt(symbolTable.size());
+        for (int symbol = 0; symbol < symbolTable.size(); symbol++)
+        {
+            String name = symbolTable.name(symbol);
+            out.putInt(name.length());
+            for (int i = 0; i < name.length(); i++)
+                out.putChar(name.charAt(i));
+        }
+
+        out.putInt(size);
+        for (int i = 0; i < size; i++)
+            out.putShort((short) types[i]);
+        out.asIntBuffer().put(starts, 0, size);
+        out.position(out.position() + size * 4);
+        out.asIntBuffer().put(lengths, 0, size);
+        out.position(out.position() + size * 4);
+        out.asIntBuffer().put(lines, 0, size);
+        out.position(out.position() + size * 4);
+        out.asIntBuffer().put(symbols, 0, size);
+        out.position(out.position() + size * 4);
+        out.asDoubleBuffer().put(numbers, 0, size);
+        out.position(out.position() + size * 8);
+    }
+
+    /**
+     * @return the tokens written by {@link TokenBuffer#writeTo(ByteBuffer)}, whose offsets refer to the UTF-8 {@code source}.
+     * @throws IllegalStateException if the input is corrupted : every count is bounded by the remaining bytes, before anything
+     *         is allocated, and every token should lie within the {@code source}.
+     **/
+    static TokenBuffer readFrom(ByteBuffer in, ByteBuffer source)
+    {
+        SymbolTable symbolTable = new SymbolTable();
+        int symbolCount = in.getInt();
+        check(symbolCount >= 0 && symbolCount <= in.remaining() / 4, "symbol count");
+        char[] name = new char[64];
+        for (int symbol = 0; symbol < symbolCount; symbol++)
+        {
+            int length = in.getInt();
+            check(length >= 0 && length <= in.remaining() / 2, "symbol length");
+            if (name.length < length) name = new char[Math.max(length, name.length * 2)];
+            in.asCharBuffer().get(name, 0, length);
+            in.position(in.position() + length * 2);
+            check(symbolTable.intern(name, 0, length) == symbol, "symbol table");
+        }
+
+        int size = in.getInt();
+        check(size >= 0 && in.remaining() == size * 26L, "token count");
+        TokenBuffer tokens = new TokenBuffer(source, symbolTable, size);
+        for (int i = 0; i < size; i++)
+            tokens.types[i] = in.getShort();
+        in.asIntBuffer().get(tokens.starts, 0, size);
+        in.position(in.position() + size * 4);
+        in.asIntBuffer().get(tokens.lengths, 0, size);
+        in.position(in.position() + size * 4);
+        in.asIntBuffer().get(tokens.lines, 0, size);
+        in.position(in.position() + size * 4);
+        in.asIntBuffer().get(tokens.symbols, 0, size);
+        in.position(in.position() + size * 4);
+        in.asDoubleBuffer().get(tokens.numbers, 0, size);
+        in.position(in.position() + size * 8);
+
+        for (int i = 0; i < size; i++)
+        {
+            int type = tokens.types[i], start = tokens.starts[i], length = tokens.lengths[i], symbol = tokens.symbols[i];
+            check((type & ~(TYPE | INTEGRAL)) == 0 && (type & TYPE) < TYPES.length, "token type");
+            check(start >= 0 && length >= 0 && length <= source.limit() - start, "token offsets");
+            // The identifiers and strings are read from the symbol table, the other tokens may have no symbol.
+            boolean named = (type & TYPE) == IDENTIFIER || (type & TYPE) == STRING;
+            check(!named && symbol == SymbolTable.NONE || symbol >= 0 && symbol < symbolCount, "token symbol");
+        }
+        tokens.size = size;
+        return tokens;
+    }
+
+    private static void check(boolean valid, String part)
+    {
+        if (!valid) throw new IllegalStateException("Corrupted " + part + ".");
+    }
+//< TokenBuffer.class::serialization
+}
@@ -0,0 +1,182 @@
+package codelab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * <p>Directory caching the lexed form of the scripts, so that a later run memory-maps it instead of lexing the script
+ * again.</p>
+ * <p>An entry is named after the SHA-256 of the source, and starts with a header holding {@link TokenCache#MAGIC}, the
+ * {@link TokenCache#FORMAT_VERSION}, the length and the hash of the source. An entry whose header does not match is ignored
+ * and overwritten. It then holds the symbols and the tokens, as by {@link TokenBuffer#writeTo(ByteBuffer)}.</p>
+ * <p>Only the sources scanned in place by {@link Lexer#ofFile(Path)} are cached, since the offsets of the tokens refer to their
+ * mapped bytes. The sources with lexical errors are not cached either, so that their errors are reported on every run.</p>
+ **/
+public final class TokenCache {
+//> TokenCache.class::constants
+    private static final int MAGIC = 0x4c4f5854; // "LOXT"
+
+    /**
+     * Version of the format of the entries, to increment on any change of the format or of the output of the lexer.
+     **/
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + HASH_LENGTH;
+//< TokenCache.class::constants
+
+
+//> TokenCache.class::fields
+    private final Path directory;
+    private int hits = 0;
+    private int misses = 0;
+//< TokenCache.class::fields
+
+
+//> TokenCache.class::constructors
+    public TokenCache(Path directory) throws IOException
+    {
+        this.directory = Files.createDirectories(directory);
+    }
+//< TokenCache.class::constructors
+
+
+//> TokenCache.class::entry-point
+    /**
+     * @return the tokens of the file, from its cache entry if it is valid, otherwise lexed and cached. {@code null} if the
+     *         file can't be scanned in place, and should be lexed by {@link Lexer#ofFile(Path)}.
+     **/
+    public TokenBuffer load(Path path) throws IOException
+    {
+        ByteBuffer source = Lexer.mapScannable(path);
+        if (source == null) return null;
+
+        byte[] hash = hash(source);
+        Path entry = directory.resolve(hex(hash) + ".tokens");
+
+        TokenBuffer cached = read(entry, source, hash);
+        if (cached != null)
+        {
+            hits++;
+            return cached;
+        }
+        misses++;
+
+        LoxContext context = LoxContext.current();
+        int diagnostics = context.diagnosticCount();
+        TokenBuffer tokens = new Lexer(source).scanBuffer();
+        if (context.diagnosticCount() == diagnostics)
+            write(entry, tokens, source, hash);
+        return tokens;
+    }
+
+    public int hits()
+    {
+        return hits;
+    }
+
+    public int misses()
+    {
+        return misses;
+    }
+//< TokenCache.class::entry-point
+
+
+//> TokenCache.class::entries
+    /**
+     * @return the tokens of the entry, or {@code null} if it is missing, stale or corrupted, to lex the source again.
+     **/
+    private static TokenBuffer read(Path entry, ByteBuffer source, byte[] hash) throws IOException
+    {
+        if (!Files.isRegularFile(entry)) return null;
+
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(entry))
+        {
+            if (channel.size() < HEADER_LENGTH || channel.size() > Integer.MAX_VALUE) return null;
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION || in.getLong() != source.limit()) return null;
+        byte[] entryHash = new byte[HASH_LENGTH];
+        in.get(entryHash);
+        if (!Arrays.equals(hash, entryHash)) return null;
+
+        try
+        {
+            return TokenBuffer.readFrom(in, source);
+        }
+        catch (RuntimeException corrupted)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry to a temporary file, then moves it in place, so that a concurrent run never reads it half-written.
+     **/
+    private void write(Path entry, TokenBuffer tokens, ByteBuffer source, byte[] hash) throws IOException
+    {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_LENGTH + tokens.serializedSize());
+        out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(source.limit()).put(hash);
+        tokens.writeTo(out);
+        out.flip();
+
+        Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+            {
+                while (out.hasRemaining()) channel.write(out);
+            }
+            try
+            {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException exception)
+            {
+                Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+//< TokenCache.class::entries
+
+
+//> TokenCache.class::utils
+    private static byte[] hash(ByteBuffer source)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source.duplicate());
+            return digest.digest();
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String hex(byte[] bytes)
+    {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            hex.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+//< TokenCache.class::utils
+}
@@ -0,0 +1,199 @@
+package codelab;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Writes the tokens of a {@link Lexer} straight from its {@link TokenBuffer}, without a {@link Token} per lexeme nor a
+ * flush per line. The output should be buffered by the caller, for instance by a {@link java.io.BufferedWriter}.</p>
+ * <p>The text format is a line per token, as printed by {@link Token#toString()}. The binary format starts with
+ * {@link TokenDump#MAGIC}, the {@link TokenDump#FORMAT_VERSION} and a byte set to {@code 1} if the offsets are counted in bytes
+ * rather than characters. Each token is then written as unsigned LEB128 varints: its type ordinal shifted left once, with the
+ * low bit set for an integral {@link TokenType#NUMBER}, the gap between its start and the end of the previous token, its length
+ * and the number of lines since the previous token. A {@link TokenType#NUMBER} is followed by the 8 big-endian bytes of its
+ * value, and an {@link TokenType#IDENTIFIER} or a {@link TokenType#STRING} by its symbol ID. The {@link TokenType#EOF} token is
+ * followed by the symbol table: the number of symbols, then the length and the UTF-8 bytes of each of them.</p>
+ **/
+public final class TokenDump {
+//> TokenDump.class::constants
+    private static final int MAGIC = 0x4c4f5844; // "LOXD"
+
+    static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+//< TokenDump.class::constants
+
+
+//> TokenDump.class::constructors
+    private TokenDump()
+    {
+    }
+//< TokenDump.class::constructors
+
+
+//> TokenDump.class::entry-point
+    /**
+     * Writes a line per token of the {@code lexer}, up to and including the {@link TokenType#EOF} token.
+     **/
+    public static void writeText(Lexer lexer, Writer out) throws IOException
+    {
+        if (!lexer.isStreaming())
+        {
+            writeText(lexer.scanBuffer(), out);
+            return;
+        }
+
+        TokenBuffer tokens = lexer.buffer();
+        for (tokens.clear(); lexer.scanNextToken(); tokens.clear())
+            tokens.write(0, out);
+    }
+
+    /**
+     * Writes a line per token of a buffer already scanned, for instance loaded from a {@link TokenCache}.
+     **/
+    public static void writeText(TokenBuffer tokens, Writer out) throws IOException
+    {
+        for (int i = 0; i < tokens.size(); i++)
+            tokens.write(i, out);
+    }
+
+    /**
+     * Writes the tokens of the {@code lexer} and its symbol table in the binary format.
+     **/
+    public static void writeBinary(Lexer lexer, OutputStream out) throws IOException
+    {
+        Output output = new Output(out);
+        output.writeInt(MAGIC);
+        output.write(FORMAT_VERSION);
+
+        if (!lexer.isStreaming())
+        {
+            TokenBuffer tokens = lexer.scanBuffer();
+            output.write(tokens.chars == null ? 1 : 0);
+            for (int i = 0; i < tokens.size(); i++)
+                output.writeToken(tokens, i, tokens.start(i));
+        }
+        else
+        {
+            TokenBuffer tokens = lexer.buffer();
+            output.write(0);
+            for (tokens.clear(); lexer.scanNextToken(); tokens.clear())
+                output.writeToken(tokens, 0, lexer.sourceOffset(tokens.start(0)));
+        }
+
+        SymbolTable symbols = lexer.symbols();
+        output.writeVarint(symbols.size());
+        for (int symbol = 0; symbol < symbols.size(); symbol++)
+        {
+            byte[] name = symbols.name(symbol).getBytes(StandardCharsets.UTF_8);
+            output.writeVarint(name.length);
+            output.write(name);
+        }
+        output.flush();
+    }
+//< TokenDump.class::entry-point
+
+
+//> TokenDump.class::binary-output
+    /**
+     * Buffers the binary output, to write the varints byte by byte without the locking of a
+     * {@link java.io.BufferedOutputStream}.
+     **/
+    private static final class Output
+    {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position = 0;
+
+        /**
+         * End offset and line of the previous token, the tokens being written relative to them.
+         **/
+        private long end = 0;
+        private int line = 1;
+
+        Output(OutputStream out)
+        {
+            this.out = out;
+        }
+
+        void writeToken(TokenBuffer tokens, int index, long start) throws IOException
+        {
+            TokenType type = tokens.type(index);
+            writeVarint(type.ordinal() << 1 | (tokens.isIntegral(index) ? 1 : 0));
+            writeVarint(start - end);
+            writeVarint(tokens.length(index));
+            writeVarint(tokens.line(index) - line);
+            end = start + tokens.length(index);
+            line = tokens.line(index);
+
+            switch (type)
+            {
+                case NUMBER:
+                    writeLong(Double.doubleToRawLongBits(tokens.number(index)));
+                    break;
+                case IDENTIFIER:
+                case STRING:
+                    writeVarint(tokens.symbol(index));
+                    break;
+                default:
+            }
+        }
+
+        void writeVarint(long value) throws IOException
+        {
+            if (position > buffer.length - 10) drain();
+            while ((value & ~0x7FL) != 0)
+            {
+                buffer[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) throws IOException
+        {
+            if (position > buffer.length - 4) drain();
+            for (int shift = 24; shift >= 0; shift -= 8)
+                buffer[position++] = (byte) (value >>> shift);
+        }
+
+        void writeLong(long value) throws IOException
+        {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void write(int value) throws IOException
+        {
+            if (position == buffer.length) drain();
+            buffer[position++] = (byte) value;
+        }
+
+        void write(byte[] bytes) throws IOException
+        {
+            if (bytes.length > buffer.length - position) drain();
+            if (bytes.length > buffer.length)
+            {
+                out.write(bytes);
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void flush() throws IOException
+        {
+            drain();
+            out.flush();
+        }
+
+        private void drain() throws IOException
+        {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+//< TokenDump.class::binary-output
+}
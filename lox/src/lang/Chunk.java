@@ -0,0 +1,85 @@
+package lang;
+
+import codelab.Token;
+
+import java.util.Arrays;
+
+/**
+ * <p>Flat instruction stream of the {@link VM}, built by the {@link Compiler}.</p>
+ * <p>The constants are NaN-boxed like the values of the stack (see {@link VM}), their objects being held by
+ * {@link Chunk#references}. The operator token of each instruction is kept, to report the runtime errors.</p>
+ **/
+final class Chunk {
+//> Chunk.class::fields
+    byte[] code = new byte[64];
+    Token[] operators = new Token[64];
+    int count = 0;
+
+    long[] constants = new long[8];
+    Object[] references = new Object[8];
+    int constantCount = 0;
+
+    /**
+     * Maximal depth of the stack, reached while running the chunk.
+     **/
+    int maxStack = 0;
+//< Chunk.class::fields
+
+
+//> Chunk.class::writing
+    /**
+     * Appends a byte of code, emitted for the {@code operator} token or {@code null}.
+     **/
+    void write(int b, Token operator)
+    {
+        if (count == code.length)
+        {
+            code = Arrays.copyOf(code, count * 2);
+            operators = Arrays.copyOf(operators, count * 2);
+        }
+        code[count] = (byte) b;
+        operators[count++] = operator;
+    }
+
+    /**
+     * @return the index of the constant, reusing an equal constant of the pool if any.
+     **/
+    int addConstant(long value, Object reference)
+    {
+        for (int i = 0; i < constantCount; i++)
+            if (constants[i] == value && (reference == null ? references[i] == null : reference.equals(references[i])))
+                return i;
+
+        if (constantCount == constants.length)
+        {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+            references = Arrays.copyOf(references, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        references[constantCount] = reference;
+        return constantCount++;
+    }
+
+    /**
+     * @return the {@code u16} operand at the given offset.
+     **/
+    int readShort(int offset)
+    {
+        return (code[offset] & 0xff) << 8 | code[offset + 1] & 0xff;
+    }
+
+    void patchShort(int offset, int value)
+    {
+        code[offset] = (byte) (value >>> 8);
+        code[offset + 1] = (byte) value;
+    }
+
+    /**
+     * @return the line of the instruction at the given offset, or {@code -1} for the literals.
+     **/
+    int line(int offset)
+    {
+        return operators[offset] == null ? -1 : operators[offset].line;
+    }
+//< Chunk.class::writing
+}
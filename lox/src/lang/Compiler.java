@@ -0,0 +1,131 @@
+package lang;
+
+import codelab.Token;
+
+/**
+ * <p>Compiles an {@link Expr} tree to a {@link Chunk} of the {@link VM}, leaving its value on top of the stack.</p>
+ * <p>The logical operators are compiled to jumps, so that their right operand is only evaluated when needed.</p>
+ **/
+class Compiler {
+//> Compiler.class::fields
+    private final Chunk chunk = new Chunk();
+
+    /**
+     * Depth of the stack after the instructions emitted so far.
+     **/
+    private int depth = 0;
+//< Compiler.class::fields
+
+
+//> Compiler.class::entry-point
+    /**
+     * @return the chunk evaluating the expression, and returning its value.
+     **/
+    static Chunk compile(Expr expr)
+    {
+        Compiler compiler = new Compiler();
+        compiler.expression(expr);
+        compiler.emit(OpCode.RETURN, null, -1);
+        return compiler.chunk;
+    }
+//< Compiler.class::entry-point
+
+
+//> Compiler.class::compilation
+    private void expression(Expr expr)
+    {
+        if (expr instanceof Expr.Binary) binary((Expr.Binary) expr);
+        else if (expr instanceof Expr.Literal) literal(((Expr.Literal) expr).value);
+        else if (expr instanceof Expr.Unary) unary((Expr.Unary) expr);
+        else expression(((Expr.Grouping) expr).expression);
+    }
+
+    private void literal(Object value)
+    {
+        if (value == null) emit(OpCode.NIL, null, 1);
+        else if (value == Boolean.TRUE) emit(OpCode.TRUE, null, 1);
+        else if (value == Boolean.FALSE) emit(OpCode.FALSE, null, 1);
+        else
+        {
+            int index = value instanceof Double
+                    ? chunk.addConstant(VM.number((Double) value), null)
+                    : chunk.addConstant(VM.OBJECT, value);
+            if (index > 0xffff) throw new IllegalStateException("Too many constants in one chunk.");
+            emit(OpCode.CONSTANT, null, 1);
+            chunk.write(index >>> 8, null);
+            chunk.write(index, null);
+        }
+    }
+
+    private void unary(Expr.Unary unary)
+    {
+        expression(unary.right);
+        switch (unary.operator.type)
+        {
+            case MINUS: emit(OpCode.NEGATE, unary.operator, 0); break;
+            case BANG: emit(OpCode.NOT, unary.operator, 0); break;
+            default: throw new RuntimeError(unary.operator, "Unknown unary operator.");
+        }
+    }
+
+    private void binary(Expr.Binary binary)
+    {
+        Token operator = binary.operator;
+        expression(binary.left);
+
+        switch (operator.type)
+        {
+            case AND: logical(OpCode.JUMP_IF_FALSE, binary); return;
+            case OR: logical(OpCode.JUMP_IF_TRUE, binary); return;
+        }
+
+        expression(binary.right);
+        switch (operator.type)
+        {
+            case PLUS: emit(OpCode.ADD, operator, -1); break;
+            case MINUS: emit(OpCode.SUBTRACT, operator, -1); break;
+            case STAR: emit(OpCode.MULTIPLY, operator, -1); break;
+            case SLASH: emit(OpCode.DIVIDE, operator, -1); break;
+            case EQUAL_EQUAL: emit(OpCode.EQUAL, operator, -1); break;
+            case BANG_EQUAL: emit(OpCode.NOT_EQUAL, operator, -1); break;
+            case GREATER: emit(OpCode.GREATER, operator, -1); break;
+            case GREATER_EQUAL: emit(OpCode.GREATER_EQUAL, operator, -1); break;
+            case LESS: emit(OpCode.LESS, operator, -1); break;
+            case LESS_EQUAL: emit(OpCode.LESS_EQUAL, operator, -1); break;
+            default: throw new RuntimeError(operator, "Unknown binary operator.");
+        }
+    }
+
+    /**
+     * Keeps the left operand if the jump is taken, otherwise pops it and evaluates the right one.
+     **/
+    private void logical(byte jump, Expr.Binary binary)
+    {
+        emit(jump, binary.operator, 0);
+        int operand = chunk.count;
+        chunk.write(0, null);
+        chunk.write(0, null);
+
+        emit(OpCode.POP, binary.operator, -1);
+        expression(binary.right);
+
+        int offset = chunk.count - operand - 2;
+        if (offset > 0xffff) throw new IllegalStateException("Too much code to jump over.");
+        chunk.patchShort(operand, offset);
+    }
+//< Compiler.class::compilation
+
+
+//> Compiler.class::utils
+    /**
+     * Appends an instruction, and tracks the depth of the stack after it.
+     * @param effect change of the depth of the stack, e.g. {@code -1} for the binary operators.
+     **/
+    private void emit(byte op, Token operator, int effect)
+    {
+        chunk.write(op, operator);
+        depth += effect;
+        chunk.maxStack = Math.max(chunk.maxStack, depth);
+    }
+//< Compiler.class::utils
+}
@@ -0,0 +1,72 @@
+package lang;
+
+/**
+ * <p>Pre-pass of the {@link Interpreter}, that strips the {@link Expr.Grouping} wrappers, and replaces the subtrees built only
+ * from {@link Expr.Literal} nodes by the literal of their value.</p>
+ * <p>A subtree whose evaluation fails is kept, so that its {@link RuntimeError} is still raised when it is evaluated.</p>
+ **/
+class ConstantFolder {
+//> ConstantFolder.class::fields
+    private final Interpreter interpreter = new Interpreter();
+//< ConstantFolder.class::fields
+
+
+//> ConstantFolder.class::folding
+    /**
+     * @return an expression with the same value as {@code expr}, with its constant subtrees folded.
+     **/
+    Expr fold(Expr expr)
+    {
+        if (expr instanceof Expr.Grouping)
+            return fold(((Expr.Grouping) expr).expression);
+
+        if (expr instanceof Expr.Unary)
+        {
+            Expr.Unary unary = (Expr.Unary) expr;
+            Expr right = fold(unary.right);
+            return tryEvaluate(right == unary.right ? unary : new Expr.Unary(unary.operator, right));
+        }
+
+        if (expr instanceof Expr.Binary)
+        {
+            Expr.Binary binary = (Expr.Binary) expr;
+            Expr left = fold(binary.left);
+
+            // A constant left operand decides the logical operators, whatever the right one is.
+            if (left instanceof Expr.Literal)
+                switch (binary.operator.type)
+                {
+                    case AND: return Interpreter.isTruthy(((Expr.Literal) left).value) ? fold(binary.right) : left;
+                    case OR: return Interpreter.isTruthy(((Expr.Literal) left).value) ? left : fold(binary.right);
+                }
+
+            Expr right = fold(binary.right);
+            if (left == binary.left && right == binary.right)
+                return tryEvaluate(binary);
+            return tryEvaluate(new Expr.Binary(left, binary.operator, right));
+        }
+
+        return expr;
+    }
+
+    /**
+     * @return the literal of the value of {@code expr} if its operands are literals, and its evaluation succeeds.
+     **/
+    private Expr tryEvaluate(Expr expr)
+    {
+        boolean constant = expr instanceof Expr.Unary
+                ? ((Expr.Unary) expr).right instanceof Expr.Literal
+                : ((Expr.Binary) expr).left instanceof Expr.Literal && ((Expr.Binary) expr).right instanceof Expr.Literal;
+        if (!constant) return expr;
+
+        try
+        {
+            return new Expr.Literal(interpreter.evaluate(expr));
+        }
+        catch (RuntimeError error)
+        {
+            return expr;
+        }
+    }
+//< ConstantFolder.class::folding
+}
@@ -0,0 +1,51 @@
+package lang;
+
+/**
+ * <p>Prints the instructions of a {@link Chunk}, one per line.</p>
+ * <p><strong>Output :</strong> {@code 0004    1 JUMP_IF_FALSE    4 -> 11}, with the offset, the line of the operator (or
+ * {@code |} for the literals), the instruction and its operand.</p>
+ **/
+final class Disassembler {
+
+    private Disassembler() { }
+
+
+    static String disassemble(Chunk chunk, String name)
+    {
+        StringBuilder text = new StringBuilder("== ").append(name).append(" ==\n");
+        for (int offset = 0; offset < chunk.count; )
+            offset = instruction(chunk, offset, text);
+        return text.toString();
+    }
+
+    /**
+     * Appends the instruction at the given offset.
+     * @return the offset of the next instruction.
+     **/
+    static int instruction(Chunk chunk, int offset, StringBuilder text)
+    {
+        byte op = chunk.code[offset];
+        int line = chunk.line(offset);
+        text.append(String.format("%04d %4s %-16s", offset, line < 0 ? "|" : String.valueOf(line), OpCode.NAMES[op]));
+
+        switch (op)
+        {
+            case OpCode.CONSTANT:
+            {
+                int index = chunk.readShort(offset + 1);
+                long value = chunk.constants[index];
+                Object constant = VM.isNumber(value) ? (Object) Double.longBitsToDouble(value) : chunk.references[index];
+                text.append(String.format("%4d '%s'", index, Interpreter.stringify(constant)));
+                break;
+            }
+            case OpCode.JUMP_IF_FALSE: case OpCode.JUMP_IF_TRUE:
+            {
+                int jump = chunk.readShort(offset + 1);
+                text.append(String.format("%4d -> %d", jump, offset + 3 + jump));
+                break;
+            }
+        }
+        text.append('\n');
+        return offset + 1 + OpCode.operands(op);
+    }
+}
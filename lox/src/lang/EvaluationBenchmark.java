@@ -0,0 +1,126 @@
+package lang;
+
+import bench.Harness;
+import codelab.Token;
+import codelab.TokenType;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+
+/**
+ * <p>Compares the evaluation of random expression trees by the {@link Interpreter}, with and without the
+ * {@link ConstantFolder} pre-pass, by the {@link VM} and by the {@link HandleCompiler}, once compiled.</p>
+ * <p>It lives in this package, as the {@link Expr} trees are not visible to the {@code bench} one.</p>
+ * <p><strong>Usage :</strong> {@code evaluation_benchmark [depth]}, at least {@code 1} and {@code 12} by default.</p>
+ **/
+class EvaluationBenchmark {
+
+    public static void main(String[] args) throws Exception
+    {
+        int depth = args.length == 1 ? Integer.parseInt(args[0]) : 12;
+        if (depth < 1)
+        {
+            System.out.println("Usage: evaluation_benchmark [depth], with a depth of at least 1.");
+            System.exit(64);
+        }
+        int evaluations = 1000;
+
+        run("arithmetic", arithmetic(new Random(42), depth), evaluations);
+        run("mixed", mixed(new Random(42), depth), evaluations);
+    }
+
+    private static void run(String name, Expr expr, int evaluations) throws Exception
+    {
+        int nodes = count(expr);
+        Interpreter interpreter = new Interpreter();
+        Harness.measure(name + " / ast", "nodes", 5, 20, () -> {
+            for (int i = 0; i < evaluations; i++) interpreter.evaluate(expr);
+            return (long) nodes * evaluations;
+        });
+
+        ConstantFolder folder = new ConstantFolder();
+        Expr[] folded = new Expr[1];
+        Harness.measure(name + " / ast, folding", "nodes", 5, 20, () -> {
+            folded[0] = folder.fold(expr);
+            return nodes;
+        });
+        Harness.measure(name + " / ast, folded", "nodes", 5, 20, () -> {
+            for (int i = 0; i < evaluations; i++) interpreter.evaluate(folded[0]);
+            return (long) nodes * evaluations;
+        });
+
+        Chunk chunk = Compiler.compile(expr);
+        VM vm = new VM();
+        Harness.measure(name + " / vm", "nodes", 5, 20, () -> {
+            for (int i = 0; i < evaluations; i++) vm.run(chunk);
+            return (long) nodes * evaluations;
+        });
+
+        MethodHandle handle = HandleCompiler.compile(expr);
+        Harness.measure(name + " / method handles", "nodes", 5, 20, () -> {
+            for (int i = 0; i < evaluations; i++) HandleCompiler.invoke(handle);
+            return (long) nodes * evaluations;
+        });
+    }
+
+    /**
+     * @return a tree of the arithmetic operators over number literals.
+     **/
+    private static Expr arithmetic(Random random, int depth)
+    {
+        if (depth <= 0) return new Expr.Literal((double) (1 + random.nextInt(9)));
+        TokenType type = new TokenType[] { TokenType.PLUS, TokenType.MINUS, TokenType.STAR, TokenType.SLASH }[random.nextInt(4)];
+        return new Expr.Binary(arithmetic(random, depth - 1), new Token(type, "", null, 1), arithmetic(random, depth - 1));
+    }
+
+    /**
+     * @return a tree of logical operators and equalities, over comparisons of arithmetic subtrees.
+     **/
+    private static Expr mixed(Random random, int depth)
+    {
+        if (depth <= 4)
+        {
+            TokenType type = random.nextBoolean() ? TokenType.LESS : TokenType.GREATER_EQUAL;
+            return new Expr.Binary(arithmetic(random, depth - 1), new Token(type, "", null, 1), arithmetic(random, depth - 1));
+        }
+        TokenType type = new TokenType[] { TokenType.EQUAL_EQUAL, TokenType.AND, TokenType.OR }[random.nextInt(3)];
+        Expr right = mixed(random, depth - 1);
+        if (random.nextBoolean()) right = new Expr.Unary(new Token(TokenType.BANG, "!", null, 1), right);
+        return new Expr.Binary(mixed(random, depth - 1), new Token(type, "", null, 1), right);
+    }
+
+    private static int count(Expr expr)
+    {
+        return expr.accept(COUNTER);
+    }
+
+    /**
+     * Counts the nodes of a tree, through the {@link Expr.Visitor}.
+     **/
+    private static final Expr.Visitor<Integer> COUNTER = new Expr.Visitor<>()
+    {
+        @Override
+        public Integer visitBinaryExpr(Expr.Binary expr)
+        {
+            return 1 + expr.left.accept(this) + expr.right.accept(this);
+        }
+
+        @Override
+        public Integer visitGroupingExpr(Expr.Grouping expr)
+        {
+            return 1 + expr.expression.accept(this);
+        }
+
+        @Override
+        public Integer visitLiteralExpr(Expr.Literal expr)
+        {
+            return 1;
+        }
+
+        @Override
+        public Integer visitUnaryExpr(Expr.Unary expr)
+        {
+            return 1 + expr.right.accept(this);
+        }
+    };
+}
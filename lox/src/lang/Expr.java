@@ -1,38 +1,148 @@
 package lang;
 
-import java.util.List;
+import java.util.Objects;
 import codelab.Token;
 
 abstract class Expr {
+	interface Visitor<R> {
+		R visitBinaryExpr(Binary expr);
+		R visitGroupingExpr(Grouping expr);
+		R visitLiteralExpr(Literal expr);
+		R visitUnaryExpr(Unary expr);
+	}
 	static class Binary extends Expr {
 		Binary(Expr left, Token operator, Expr right) {
 			this.left = left;
 			this.operator = operator;
 			this.right = right;
+			int hash = 0;
+			hash = 31 * hash + left.hashCode();
+			hash = 31 * hash + hashToken(operator);
+			hash = 31 * hash + right.hashCode();
+			this.hash = hash;
+		}
+
+		@Override
+		<R> R accept(Visitor<R> visitor) {
+			return visitor.visitBinaryExpr(this);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) return true;
+			if (!(object instanceof Binary)) return false;
+			Binary other = (Binary) object;
+			return hash == other.hash && left.equals(other.left) && sameToken(operator, other.operator) && right.equals(other.right);
 		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
 		final Expr left;
 		final Token operator;
 		final Expr right;
+		private final int hash;
 	}
 	static class Grouping extends Expr {
 		Grouping(Expr expression) {
 			this.expression = expression;
+			int hash = 1;
+			hash = 31 * hash + expression.hashCode();
+			this.hash = hash;
 		}
+
+		@Override
+		<R> R accept(Visitor<R> visitor) {
+			return visitor.visitGroupingExpr(this);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) return true;
+			if (!(object instanceof Grouping)) return false;
+			Grouping other = (Grouping) object;
+			return hash == other.hash && expression.equals(other.expression);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
 		final Expr expression;
+		private final int hash;
 	}
 	static class Literal extends Expr {
 		Literal(Object value) {
 			this.value = value;
+			int hash = 2;
+			hash = 31 * hash + Objects.hashCode(value);
+			this.hash = hash;
+		}
+
+		@Override
+		<R> R accept(Visitor<R> visitor) {
+			return visitor.visitLiteralExpr(this);
 		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) return true;
+			if (!(object instanceof Literal)) return false;
+			Literal other = (Literal) object;
+			return hash == other.hash && Objects.equals(value, other.value);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
 		final Object value;
+		private final int hash;
 	}
 	static class Unary extends Expr {
 		Unary(Token operator, Expr right) {
 			this.operator = operator;
 			this.right = right;
+			int hash = 3;
+			hash = 31 * hash + hashToken(operator);
+			hash = 31 * hash + right.hashCode();
+			this.hash = hash;
+		}
+
+		@Override
+		<R> R accept(Visitor<R> visitor) {
+			return visitor.visitUnaryExpr(this);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) return true;
+			if (!(object instanceof Unary)) return false;
+			Unary other = (Unary) object;
+			return hash == other.hash && sameToken(operator, other.operator) && right.equals(other.right);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
 		}
 
 		final Token operator;
 		final Expr right;
+		private final int hash;
+	}
+
+	abstract <R> R accept(Visitor<R> visitor);
+
+	static boolean sameToken(Token a, Token b) {
+		return a.type == b.type && a.line == b.line && a.lexeme.equals(b.lexeme);
+	}
+
+	static int hashToken(Token token) {
+		return 31 * (31 * token.type.ordinal() + token.line) + token.lexeme.hashCode();
 	}
 }
@@ -0,0 +1,117 @@
+package lang;
+
+import java.util.Arrays;
+import codelab.TokenBuffer;
+
+final class ExprArena {
+	static final int BINARY = 0;
+	static final int GROUPING = 1;
+	static final int LITERAL = 2;
+	static final int UNARY = 3;
+
+	private static final int STRIDE = 3;
+
+	final TokenBuffer tokens;
+	private int[] kinds;
+	private int[] slots;
+	private int size;
+
+	ExprArena(TokenBuffer tokens, int capacity) {
+		this.tokens = tokens;
+		this.kinds = new int[Math.max(capacity, 16)];
+		this.slots = new int[kinds.length * STRIDE];
+	}
+
+	int size() {
+		return size;
+	}
+
+	int kind(int node) {
+		return kinds[node];
+	}
+
+	private int add(int kind, int slot0, int slot1, int slot2) {
+		if (size == kinds.length) {
+			kinds = Arrays.copyOf(kinds, size * 2);
+			slots = Arrays.copyOf(slots, size * 2 * STRIDE);
+		}
+		kinds[size] = kind;
+		slots[size * STRIDE + 0] = slot0;
+		slots[size * STRIDE + 1] = slot1;
+		slots[size * STRIDE + 2] = slot2;
+		return size++;
+	}
+
+	int binary(int left, int operator, int right) {
+		return add(BINARY, left, operator, right);
+	}
+
+	int binaryLeft(int node) {
+		return slots[node * STRIDE + 0];
+	}
+
+	int binaryOperator(int node) {
+		return slots[node * STRIDE + 1];
+	}
+
+	int binaryRight(int node) {
+		return slots[node * STRIDE + 2];
+	}
+
+	int grouping(int expression) {
+		return add(GROUPING, expression, 0, 0);
+	}
+
+	int groupingExpression(int node) {
+		return slots[node * STRIDE + 0];
+	}
+
+	int literal(int value) {
+		return add(LITERAL, value, 0, 0);
+	}
+
+	int literalValue(int node) {
+		return slots[node * STRIDE + 0];
+	}
+
+	int unary(int operator, int right) {
+		return add(UNARY, operator, right, 0);
+	}
+
+	int unaryOperator(int node) {
+		return slots[node * STRIDE + 0];
+	}
+
+	int unaryRight(int node) {
+		return slots[node * STRIDE + 1];
+	}
+
+	Expr toExpr(int node) {
+		switch (kinds[node]) {
+			case BINARY: return new Expr.Binary(toExpr(binaryLeft(node)), tokens.token(binaryOperator(node)), toExpr(binaryRight(node)));
+			case GROUPING: return new Expr.Grouping(toExpr(groupingExpression(node)));
+			case LITERAL: return new Expr.Literal(value(literalValue(node)));
+			case UNARY: return new Expr.Unary(tokens.token(unaryOperator(node)), toExpr(unaryRight(node)));
+			default: throw new IllegalStateException("Unknown kind " + kinds[node] + ".");
+		}
+	}
+
+	Expr toExpr(int node, ExprFactory factory) {
+		switch (kinds[node]) {
+			case BINARY: return factory.binary(toExpr(binaryLeft(node), factory), tokens.token(binaryOperator(node)), toExpr(binaryRight(node), factory));
+			case GROUPING: return factory.grouping(toExpr(groupingExpression(node), factory));
+			case LITERAL: return factory.literal(value(literalValue(node)));
+			case UNARY: return factory.unary(tokens.token(unaryOperator(node)), toExpr(unaryRight(node), factory));
+			default: throw new IllegalStateException("Unknown kind " + kinds[node] + ".");
+		}
+	}
+
+	Object value(int token) {
+		switch (tokens.type(token)) {
+			case TRUE: return true;
+			case FALSE: return false;
+			case NIL: return null;
+			default: return tokens.literal(token);
+		}
+	}
+}
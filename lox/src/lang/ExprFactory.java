@@ -0,0 +1,34 @@
+package lang;
+
+import java.util.HashMap;
+import java.util.Map;
+import codelab.Token;
+
+final class ExprFactory {
+	private final Map<Expr, Expr> nodes = new HashMap<>();
+
+	int size() {
+		return nodes.size();
+	}
+
+	Expr binary(Expr left, Token operator, Expr right) {
+		return intern(new Expr.Binary(left, operator, right));
+	}
+
+	Expr grouping(Expr expression) {
+		return intern(new Expr.Grouping(expression));
+	}
+
+	Expr literal(Object value) {
+		return intern(new Expr.Literal(value));
+	}
+
+	Expr unary(Token operator, Expr right) {
+		return intern(new Expr.Unary(operator, right));
+	}
+
+	private Expr intern(Expr node) {
+		Expr shared = nodes.putIfAbsent(node, node);
+		return shared == null ? node : shared;
+	}
+}
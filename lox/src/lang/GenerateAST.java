@@ -15,12 +15,15 @@ public class GenerateAST {
         }
         String outputDir = args[0];
 
-        defineAST(outputDir, "Expr", Arrays.asList(
+        List<String> expr = Arrays.asList(
                 "Binary   : Expr left, Token operator, Expr right",
                 "Grouping : Expr expression",
                 "Literal  : Object value",
                 "Unary    : Token operator, Expr right"
-        ));
+        );
+        defineAST(outputDir, "Expr", expr);
+        defineFactory(outputDir, "Expr", expr);
+        defineArena(outputDir, "Expr", expr);
     }
 //< GenerateAST.class::entry-point
 
@@ -33,24 +36,52 @@ public class GenerateAST {
 
         writer.println("package lang;");
         writer.println();
-        writer.println("import java.util.List;");
+        writer.println("import java.util.Objects;");
         writer.println("import codelab.Token;");
         writer.println();
         writer.println("abstract class " + baseName + " {");
 
+        defineVisitor(writer, baseName, types);
 
-        for (String type : types)
+        for (int i = 0; i < types.size(); i++)
         {
-            String className = type.split(":")[0].trim();
-            String fields = type.split(":")[1].trim();
-            defineType(writer, baseName, className, fields);
+            String className = types.get(i).split(":")[0].trim();
+            String fields = types.get(i).split(":")[1].trim();
+            defineType(writer, baseName, className, fields, i);
         }
 
+        writer.println();
+        writer.println("\tabstract <R> R accept(Visitor<R> visitor);");
+        writer.println();
+        writer.println("\tstatic boolean sameToken(Token a, Token b) {");
+        writer.println("\t\treturn a.type == b.type && a.line == b.line && a.lexeme.equals(b.lexeme);");
+        writer.println("\t}");
+        writer.println();
+        writer.println("\tstatic int hashToken(Token token) {");
+        writer.println("\t\treturn 31 * (31 * token.type.ordinal() + token.line) + token.lexeme.hashCode();");
+        writer.println("\t}");
+
         writer.println("}");
         writer.close();
     }
 
-    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList)
+    private static void defineVisitor(PrintWriter writer, String baseName, List<String> types)
+    {
+        writer.println("\tinterface Visitor<R> {");
+        for (String type : types)
+        {
+            String typeName = type.split(":")[0].trim();
+            writer.println("\t\tR visit" + typeName + baseName + "(" + typeName + " " + baseName.toLowerCase() + ");");
+        }
+        writer.println("\t}");
+    }
+
+    /**
+     * Writes a node type, whose {@code equals} compares the structure of the trees : the children by {@code equals}, the
+     * tokens by type, line and lexeme, and the other fields by {@link java.util.Objects#equals(Object, Object)}.
+     * Its hash is computed once by the constructor, from those of its fields.
+     **/
+    private static void defineType(PrintWriter writer, String baseName, String className, String fieldList, int kind)
     {
         writer.println("\tstatic class " + className + " extends " + baseName + " {");
         writer.println("\t\t" + className + "(" + fieldList + ") {");
@@ -61,11 +92,265 @@ public class GenerateAST {
             String name = field.split(" ")[1];
             writer.println("\t\t\tthis." + name + " = " + name + ";");
         }
+
+        writer.println("\t\t\tint hash = " + kind + ";");
+        for (String field : fields)
+        {
+            String type = field.split(" ")[0];
+            String name = field.split(" ")[1];
+            if (type.equals(baseName)) writer.println("\t\t\thash = 31 * hash + " + name + ".hashCode();");
+            else if (type.equals("Token")) writer.println("\t\t\thash = 31 * hash + hashToken(" + name + ");");
+            else writer.println("\t\t\thash = 31 * hash + Objects.hashCode(" + name + ");");
+        }
+        writer.println("\t\t\tthis.hash = hash;");
+        writer.println("\t\t}");
+
+        writer.println();
+        writer.println("\t\t@Override");
+        writer.println("\t\t<R> R accept(Visitor<R> visitor) {");
+        writer.println("\t\t\treturn visitor.visit" + className + baseName + "(this);");
         writer.println("\t\t}");
 
+        StringBuilder comparison = new StringBuilder("hash == other.hash");
+        for (String field : fields)
+        {
+            String type = field.split(" ")[0];
+            String name = field.split(" ")[1];
+            comparison.append(" && ");
+            if (type.equals(baseName)) comparison.append(name).append(".equals(other.").append(name).append(")");
+            else if (type.equals("Token")) comparison.append("sameToken(").append(name).append(", other.").append(name).append(")");
+            else comparison.append("Objects.equals(").append(name).append(", other.").append(name).append(")");
+        }
+        writer.println();
+        writer.println("\t\t@Override");
+        writer.println("\t\tpublic boolean equals(Object object) {");
+        writer.println("\t\t\tif (this == object) return true;");
+        writer.println("\t\t\tif (!(object instanceof " + className + ")) return false;");
+        writer.println("\t\t\t" + className + " other = (" + className + ") object;");
+        writer.println("\t\t\treturn " + comparison + ";");
+        writer.println("\t\t}");
+        writer.println();
+        writer.println("\t\t@Override");
+        writer.println("\t\tpublic int hashCode() {");
+        writer.println("\t\t\treturn hash;");
+        writer.println("\t\t}");
+        writer.println();
+
         for (String field : fields)
             writer.println("\t\tfinal " + field + ";");
+        writer.println("\t\tprivate final int hash;");
         writer.println("\t}");
     }
+
+    /**
+     * <p>Writes the {@code <baseName>Factory} class, that creates the nodes through a table of the nodes created so far : a
+     * node structurally equal to a previous one is replaced by it, so that the repeated subtrees are shared.</p>
+     * <p>The tokens are compared with their line, so that a shared node reports its runtime errors at the line of each of its
+     * occurrences. Only the subtrees repeated on a line, and the literals, are thus shared.</p>
+     **/
+    private static void defineFactory(String outputDir, String baseName, List<String> types) throws IOException
+    {
+        String className = baseName + "Factory";
+        String path = outputDir + "/" + className + ".java";
+        PrintWriter writer = new PrintWriter(path, "UTF-8");
+
+        writer.println("package lang;");
+        writer.println();
+        writer.println("import java.util.HashMap;");
+        writer.println("import java.util.Map;");
+        writer.println("import codelab.Token;");
+        writer.println();
+        writer.println("final class " + className + " {");
+        writer.println("\tprivate final Map<" + baseName + ", " + baseName + "> nodes = new HashMap<>();");
+        writer.println();
+        writer.println("\tint size() {");
+        writer.println("\t\treturn nodes.size();");
+        writer.println("\t}");
+
+        for (String type : types)
+        {
+            String typeName = type.split(":")[0].trim();
+            String fieldList = type.split(":")[1].trim();
+            StringBuilder arguments = new StringBuilder();
+            for (String field : fieldList.split(", "))
+            {
+                if (arguments.length() > 0) arguments.append(", ");
+                arguments.append(field.split(" ")[1]);
+            }
+            writer.println();
+            writer.println("\t" + baseName + " " + Character.toLowerCase(typeName.charAt(0)) + typeName.substring(1)
+                    + "(" + fieldList + ") {");
+            writer.println("\t\treturn intern(new " + baseName + "." + typeName + "(" + arguments + "));");
+            writer.println("\t}");
+        }
+
+        writer.println();
+        writer.println("\tprivate " + baseName + " intern(" + baseName + " node) {");
+        writer.println("\t\t" + baseName + " shared = nodes.putIfAbsent(node, node);");
+        writer.println("\t\treturn shared == null ? node : shared;");
+        writer.println("\t}");
+        writer.println("}");
+        writer.close();
+    }
 //< GenerateAST.class::generate
+
+
+//> GenerateAST.class::generate-arena
+    /**
+     * <p>Writes the {@code <baseName>Arena} class, that stores the same types as {@code <baseName>} in parallel {@code int[]}
+     * arrays : the kind of each node, and a fixed number of slots holding its fields.</p>
+     * <p>A field of the base type holds the index of the child node, a {@code Token} field the index of the token in the
+     * {@code TokenBuffer}, and any other field the index of the literal token of its value.</p>
+     **/
+    private static void defineArena(String outputDir, String baseName, List<String> types) throws IOException
+    {
+        String className = baseName + "Arena";
+        String path = outputDir + "/" + className + ".java";
+        PrintWriter writer = new PrintWriter(path, "UTF-8");
+
+        int stride = 0;
+        for (String type : types)
+            stride = Math.max(stride, type.split(":")[1].trim().split(", ").length);
+
+        writer.println("package lang;");
+        writer.println();
+        writer.println("import java.util.Arrays;");
+        writer.println("import codelab.TokenBuffer;");
+        writer.println();
+        writer.println("final class " + className + " {");
+
+        for (int i = 0; i < types.size(); i++)
+            writer.println("\tstatic final int " + types.get(i).split(":")[0].trim().toUpperCase() + " = " + i + ";");
+        writer.println();
+        writer.println("\tprivate static final int STRIDE = " + stride + ";");
+        writer.println();
+        writer.println("\tfinal TokenBuffer tokens;");
+        writer.println("\tprivate int[] kinds;");
+        writer.println("\tprivate int[] slots;");
+        writer.println("\tprivate int size;");
+        writer.println();
+        writer.println("\t" + className + "(TokenBuffer tokens, int capacity) {");
+        writer.println("\t\tthis.tokens = tokens;");
+        writer.println("\t\tthis.kinds = new int[Math.max(capacity, 16)];");
+        writer.println("\t\tthis.slots = new int[kinds.length * STRIDE];");
+        writer.println("\t}");
+        writer.println();
+        writer.println("\tint size() {");
+        writer.println("\t\treturn size;");
+        writer.println("\t}");
+        writer.println();
+        writer.println("\tint kind(int node) {");
+        writer.println("\t\treturn kinds[node];");
+        writer.println("\t}");
+
+        StringBuilder parameters = new StringBuilder("int kind");
+        for (int slot = 0; slot < stride; slot++)
+            parameters.append(", int slot").append(slot);
+        writer.println();
+        writer.println("\tprivate int add(" + parameters + ") {");
+        writer.println("\t\tif (size == kinds.length) {");
+        writer.println("\t\t\tkinds = Arrays.copyOf(kinds, size * 2);");
+        writer.println("\t\t\tslots = Arrays.copyOf(slots, size * 2 * STRIDE);");
+        writer.println("\t\t}");
+        writer.println("\t\tkinds[size] = kind;");
+        for (int slot = 0; slot < stride; slot++)
+            writer.println("\t\tslots[size * STRIDE + " + slot + "] = slot" + slot + ";");
+        writer.println("\t\treturn size++;");
+        writer.println("\t}");
+
+        for (String type : types)
+            defineArenaType(writer, baseName, type.split(":")[0].trim(), type.split(":")[1].trim(), stride);
+
+        defineConversion(writer, baseName, types, false);
+        defineConversion(writer, baseName, types, true);
+        writer.println();
+        writer.println("\tObject value(int token) {");
+        writer.println("\t\tswitch (tokens.type(token)) {");
+        writer.println("\t\t\tcase TRUE: return true;");
+        writer.println("\t\t\tcase FALSE: return false;");
+        writer.println("\t\t\tcase NIL: return null;");
+        writer.println("\t\t\tdefault: return tokens.literal(token);");
+        writer.println("\t\t}");
+        writer.println("\t}");
+
+        writer.println("}");
+        writer.close();
+    }
+
+    /**
+     * Writes the {@code to<baseName>} method, converting a node and its subtree to the {@code <baseName>} tree, created through
+     * a {@code <baseName>Factory} argument if {@code shared}, so that the repeated subtrees are shared.
+     **/
+    private static void defineConversion(PrintWriter writer, String baseName, List<String> types, boolean shared)
+    {
+        String factory = shared ? ", factory" : "";
+        writer.println();
+        writer.println("\t" + baseName + " to" + baseName + "(int node" + (shared ? ", " + baseName + "Factory factory" : "") + ") {");
+        writer.println("\t\tswitch (kinds[node]) {");
+        for (String type : types)
+        {
+            String name = type.split(":")[0].trim();
+            StringBuilder arguments = new StringBuilder();
+            for (String field : type.split(":")[1].trim().split(", "))
+            {
+                String accessor = accessor(name, field.split(" ")[1]) + "(node)";
+                String fieldType = field.split(" ")[0];
+                if (arguments.length() > 0) arguments.append(", ");
+                if (fieldType.equals(baseName))
+                    arguments.append("to").append(baseName).append("(").append(accessor).append(factory).append(")");
+                else if (fieldType.equals("Token")) arguments.append("tokens.token(").append(accessor).append(")");
+                else arguments.append("value(").append(accessor).append(")");
+            }
+            String creation = shared
+                    ? "factory." + Character.toLowerCase(name.charAt(0)) + name.substring(1)
+                    : "new " + baseName + "." + name;
+            writer.println("\t\t\tcase " + name.toUpperCase() + ": return " + creation + "(" + arguments + ");");
+        }
+        writer.println("\t\t\tdefault: throw new IllegalStateException(\"Unknown kind \" + kinds[node] + \".\");");
+        writer.println("\t\t}");
+        writer.println("\t}");
+    }
+
+    private static void defineArenaType(PrintWriter writer, String baseName, String className, String fieldList, int stride)
+    {
+        String[] fields = fieldList.split(", ");
+
+        StringBuilder parameters = new StringBuilder();
+        StringBuilder arguments = new StringBuilder(className.toUpperCase());
+        for (int slot = 0; slot < stride; slot++)
+        {
+            if (slot < fields.length)
+            {
+                String name = fields[slot].split(" ")[1];
+                if (parameters.length() > 0) parameters.append(", ");
+                parameters.append("int ").append(name);
+                arguments.append(", ").append(name);
+            }
+            else arguments.append(", 0");
+        }
+
+        String factory = Character.toLowerCase(className.charAt(0)) + className.substring(1);
+        writer.println();
+        writer.println("\tint " + factory + "(" + parameters + ") {");
+        writer.println("\t\treturn add(" + arguments + ");");
+        writer.println("\t}");
+
+        for (int slot = 0; slot < fields.length; slot++)
+        {
+            writer.println();
+            writer.println("\tint " + accessor(className, fields[slot].split(" ")[1]) + "(int node) {");
+            writer.println("\t\treturn slots[node * STRIDE + " + slot + "];");
+            writer.println("\t}");
+        }
+    }
+
+    /**
+     * @return the name of the arena accessor of a field, e.g. {@code binaryLeft}.
+     **/
+    private static String accessor(String className, String field)
+    {
+        return Character.toLowerCase(className.charAt(0)) + className.substring(1)
+                + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+//< GenerateAST.class::generate-arena
 }
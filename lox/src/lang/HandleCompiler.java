@@ -0,0 +1,253 @@
+package lang;
+
+import codelab.Token;
+import codelab.TokenType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+
+/**
+ * <p>Lowers an {@link Expr} tree once into a composed {@link MethodHandle} of type {@code ()Object}, so that the JIT can
+ * inline the whole expression when the handle is invoked from a constant, e.g. a {@code static final} field.</p>
+ * <p>Each node is compiled to a handle returning a {@code double}, a {@code boolean} or an {@code Object}, according to the
+ * types its operands are statically known to have. The numbers and booleans are thus passed unboxed between the nodes. An
+ * operator whose operands are not statically known is guarded by a type test, and falls back to the boxed operators of the
+ * {@link Interpreter} when the test fails, so that the results and runtime errors are exactly those of the interpreter. The
+ * handles keep no state, and a handle can thus be invoked by several threads at once.</p>
+ **/
+final class HandleCompiler {
+
+    private HandleCompiler() { }
+
+
+//> HandleCompiler.class::entry-point
+    /**
+     * @return the handle evaluating the expression, of type {@code ()Object}.
+     **/
+    static MethodHandle compile(Expr expr)
+    {
+        return asObject(expression(expr));
+    }
+
+    /**
+     * @return the value of a handle returned by {@link HandleCompiler#compile(Expr)}, as
+     *         {@link Interpreter#evaluate(Expr)}.
+     **/
+    static Object invoke(MethodHandle handle)
+    {
+        try
+        {
+            return (Object) handle.invokeExact();
+        }
+        catch (RuntimeException | Error error)
+        {
+            throw error;
+        }
+        catch (Throwable throwable)
+        {
+            throw new IllegalStateException(throwable);
+        }
+    }
+//< HandleCompiler.class::entry-point
+
+
+//> HandleCompiler.class::compilation
+    private static MethodHandle expression(Expr expr)
+    {
+        if (expr instanceof Expr.Binary) return binary((Expr.Binary) expr);
+        if (expr instanceof Expr.Literal) return literal(((Expr.Literal) expr).value);
+        if (expr instanceof Expr.Unary) return unary((Expr.Unary) expr);
+        return expression(((Expr.Grouping) expr).expression);
+    }
+
+    private static MethodHandle literal(Object value)
+    {
+        if (value instanceof Double) return MethodHandles.constant(double.class, value);
+        if (value instanceof Boolean) return MethodHandles.constant(boolean.class, value);
+        return MethodHandles.constant(Object.class, value);
+    }
+
+    private static MethodHandle unary(Expr.Unary unary)
+    {
+        MethodHandle right = expression(unary.right);
+        Class<?> type = right.type().returnType();
+
+        switch (unary.operator.type)
+        {
+            case MINUS:
+                if (type == double.class) return MethodHandles.collectArguments(NEGATE, 0, right);
+                MethodHandle negate = MethodHandles.filterArguments(NEGATE, 0, UNBOX);
+                return MethodHandles.collectArguments(guard(IS_NUMBER, negate, fallback(unary.operator, UNARY)),
+                        0, asObject(right));
+            case BANG:
+                // A subtree returning a double has no side effect, and never fails : its value is always truthy.
+                if (type == double.class) return MethodHandles.constant(boolean.class, false);
+                if (type == boolean.class) return MethodHandles.collectArguments(NOT, 0, right);
+                return MethodHandles.collectArguments(FALSEY, 0, right);
+            default:
+                throw new RuntimeError(unary.operator, "Unknown unary operator.");
+        }
+    }
+
+    private static MethodHandle binary(Expr.Binary binary)
+    {
+        Token operator = binary.operator;
+        MethodHandle left = expression(binary.left);
+        MethodHandle right = expression(binary.right);
+        Class<?> leftType = left.type().returnType();
+        Class<?> rightType = right.type().returnType();
+
+        MethodHandle numeric;
+        switch (operator.type)
+        {
+            case AND:
+                return MethodHandles.foldArguments(MethodHandles.guardWithTest(TRUTHY,
+                        MethodHandles.dropArguments(asObject(right), 0, Object.class), IDENTITY), asObject(left));
+            case OR:
+                return MethodHandles.foldArguments(MethodHandles.guardWithTest(TRUTHY,
+                        IDENTITY, MethodHandles.dropArguments(asObject(right), 0, Object.class)), asObject(left));
+
+            case EQUAL_EQUAL: return equality(left, right);
+            case BANG_EQUAL: return MethodHandles.filterReturnValue(equality(left, right), NOT);
+
+            case PLUS: numeric = ADD; break;
+            case MINUS: numeric = SUBTRACT; break;
+            case STAR: numeric = MULTIPLY; break;
+            case SLASH: numeric = DIVIDE; break;
+            case GREATER: numeric = GREATER; break;
+            case GREATER_EQUAL: numeric = GREATER_EQUAL; break;
+            case LESS: numeric = LESS; break;
+            case LESS_EQUAL: numeric = LESS_EQUAL; break;
+            default: throw new RuntimeError(operator, "Unknown binary operator.");
+        }
+
+        if (leftType == double.class && rightType == double.class)
+            return combine(numeric, left, right);
+
+        MethodHandle slow = fallback(operator, BINARY);
+        if (operator.type == TokenType.PLUS)
+            slow = MethodHandles.guardWithTest(ARE_STRINGS, CONCAT, slow);
+        MethodHandle fast = MethodHandles.filterArguments(numeric, 0, UNBOX, UNBOX);
+        return combine(guard(ARE_NUMBERS, fast, slow), asObject(left), asObject(right));
+    }
+
+    /**
+     * @return the handle comparing the values of the operands, as {@link Double#equals(Object)} for the numbers.
+     **/
+    private static MethodHandle equality(MethodHandle left, MethodHandle right)
+    {
+        Class<?> leftType = left.type().returnType();
+        Class<?> rightType = right.type().returnType();
+
+        if (leftType == double.class && rightType == double.class) return combine(EQUAL_NUMBERS, left, right);
+        if (leftType == boolean.class && rightType == boolean.class) return combine(EQUAL_BOOLEANS, left, right);
+        return combine(EQUAL_OBJECTS, asObject(left), asObject(right));
+    }
+
+    /**
+     * @return the handle of a node, evaluating the {@code ()T} handles of its left then right operands before the
+     *         {@code (T, T)R} operator.
+     **/
+    private static MethodHandle combine(MethodHandle operator, MethodHandle left, MethodHandle right)
+    {
+        return MethodHandles.collectArguments(MethodHandles.collectArguments(operator, 1, right), 0, left);
+    }
+
+    /**
+     * @return the handle calling {@code fast} if the {@code test} of its arguments holds, {@code slow} otherwise.
+     **/
+    private static MethodHandle guard(MethodHandle test, MethodHandle fast, MethodHandle slow)
+    {
+        return MethodHandles.guardWithTest(test, fast.asType(slow.type()), slow);
+    }
+
+    /**
+     * @return the handle applying the operator to its boxed operands, by {@link Interpreter#applyUnary(Token, Object)} or
+     *         {@link Interpreter#applyBinary(Token, Object, Object)}.
+     **/
+    private static MethodHandle fallback(Token operator, MethodHandle handle)
+    {
+        return MethodHandles.insertArguments(handle, 0, operator);
+    }
+
+    private static MethodHandle asObject(MethodHandle handle)
+    {
+        return handle.asType(MethodType.methodType(Object.class));
+    }
+//< HandleCompiler.class::compilation
+
+
+//> HandleCompiler.class::operators
+    private static double negate(double a) { return -a; }
+    private static double add(double a, double b) { return a + b; }
+    private static double subtract(double a, double b) { return a - b; }
+    private static double multiply(double a, double b) { return a * b; }
+    private static double divide(double a, double b) { return a / b; }
+    private static boolean greater(double a, double b) { return a > b; }
+    private static boolean greaterEqual(double a, double b) { return a >= b; }
+    private static boolean less(double a, double b) { return a < b; }
+    private static boolean lessEqual(double a, double b) { return a <= b; }
+
+    private static boolean not(boolean a) { return !a; }
+    private static boolean falsey(Object a) { return !Interpreter.isTruthy(a); }
+    private static boolean truthy(Object a) { return Interpreter.isTruthy(a); }
+
+    private static boolean equalNumbers(double a, double b) { return Double.doubleToLongBits(a) == Double.doubleToLongBits(b); }
+    private static boolean equalBooleans(boolean a, boolean b) { return a == b; }
+    private static boolean equalObjects(Object a, Object b) { return Objects.equals(a, b); }
+
+    private static boolean isNumber(Object a) { return a instanceof Double; }
+    private static boolean areNumbers(Object a, Object b) { return a instanceof Double && b instanceof Double; }
+    private static boolean areStrings(Object a, Object b) { return a instanceof String && b instanceof String; }
+    private static Object concat(Object a, Object b) { return (String) a + b; }
+    private static double unbox(Object a) { return (Double) a; }
+
+    private static Object unary(Token operator, Object right) { return Interpreter.applyUnary(operator, right); }
+    private static Object binary(Token operator, Object left, Object right) { return Interpreter.applyBinary(operator, left, right); }
+//< HandleCompiler.class::operators
+
+
+//> HandleCompiler.class::handles
+    private static final MethodHandle NEGATE = find("negate", double.class, double.class);
+    private static final MethodHandle ADD = find("add", double.class, double.class, double.class);
+    private static final MethodHandle SUBTRACT = find("subtract", double.class, double.class, double.class);
+    private static final MethodHandle MULTIPLY = find("multiply", double.class, double.class, double.class);
+    private static final MethodHandle DIVIDE = find("divide", double.class, double.class, double.class);
+    private static final MethodHandle GREATER = find("greater", boolean.class, double.class, double.class);
+    private static final MethodHandle GREATER_EQUAL = find("greaterEqual", boolean.class, double.class, double.class);
+    private static final MethodHandle LESS = find("less", boolean.class, double.class, double.class);
+    private static final MethodHandle LESS_EQUAL = find("lessEqual", boolean.class, double.class, double.class);
+
+    private static final MethodHandle NOT = find("not", boolean.class, boolean.class);
+    private static final MethodHandle FALSEY = find("falsey", boolean.class, Object.class);
+    private static final MethodHandle TRUTHY = find("truthy", boolean.class, Object.class);
+    private static final MethodHandle IDENTITY = MethodHandles.identity(Object.class);
+
+    private static final MethodHandle EQUAL_NUMBERS = find("equalNumbers", boolean.class, double.class, double.class);
+    private static final MethodHandle EQUAL_BOOLEANS = find("equalBooleans", boolean.class, boolean.class, boolean.class);
+    private static final MethodHandle EQUAL_OBJECTS = find("equalObjects", boolean.class, Object.class, Object.class);
+
+    private static final MethodHandle IS_NUMBER = find("isNumber", boolean.class, Object.class);
+    private static final MethodHandle ARE_NUMBERS = find("areNumbers", boolean.class, Object.class, Object.class);
+    private static final MethodHandle ARE_STRINGS = find("areStrings", boolean.class, Object.class, Object.class);
+    private static final MethodHandle CONCAT = find("concat", Object.class, Object.class, Object.class);
+    private static final MethodHandle UNBOX = find("unbox", double.class, Object.class);
+
+    private static final MethodHandle UNARY = find("unary", Object.class, Token.class, Object.class);
+    private static final MethodHandle BINARY = find("binary", Object.class, Token.class, Object.class, Object.class);
+
+    private static MethodHandle find(String name, Class<?> returnType, Class<?>... parameterTypes)
+    {
+        try
+        {
+            return MethodHandles.lookup().findStatic(HandleCompiler.class, name, MethodType.methodType(returnType, parameterTypes));
+        }
+        catch (NoSuchMethodException | IllegalAccessException exception)
+        {
+            throw new IllegalStateException(exception);
+        }
+    }
+//< HandleCompiler.class::handles
+}
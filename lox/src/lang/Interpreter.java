@@ -0,0 +1,246 @@
+package lang;
+
+import codelab.Lox;
+import codelab.LoxContext;
+import codelab.Token;
+
+import java.util.Objects;
+
+/**
+ * <p>Tree-walking evaluator of the {@link Expr} trees.</p>
+ * <p>Every node is evaluated by {@link Interpreter#evaluateNumber(Expr)}, that returns the value of a number as a primitive
+ * {@code double}. The other values are left in {@link Interpreter#value}, with {@link Interpreter#numeric} cleared. An
+ * arithmetic subtree is thus evaluated without boxing its intermediate results, and its value is only boxed at the boundary,
+ * by {@link Interpreter#evaluate(Expr)}.</p>
+ * <p>The {@link StatsRunner} first folds the constant subtrees of the statements by a {@link ConstantFolder}.</p>
+ **/
+class Interpreter {
+//> Interpreter.class::fields
+    /**
+     * True if the last evaluated node is a number, returned by {@link Interpreter#evaluateNumber(Expr)}.
+     **/
+    private boolean numeric;
+
+    /**
+     * Value of the last evaluated node, when it is not a number.
+     **/
+    private Object value;
+
+    /**
+     * Counts the operators evaluated at each line, if not {@code null}.
+     **/
+    LineProfiler profiler;
+//< Interpreter.class::fields
+
+
+//> Interpreter.class::entry-point
+    /**
+     * Evaluates and prints an expression, reporting its runtime error if any.
+     **/
+    void interpret(Expr expression)
+    {
+        try
+        {
+            LoxContext.current().out().println(stringify(evaluate(expression)));
+        }
+        catch (RuntimeError error)
+        {
+            Lox.runtimeError(error);
+        }
+    }
+
+    /**
+     * @return the value of the expression, a {@code Double}, {@code Boolean}, {@code String} or {@code null}.
+     **/
+    Object evaluate(Expr expr)
+    {
+        double number = evaluateNumber(expr);
+        return numeric ? (Object) number : value;
+    }
+//< Interpreter.class::entry-point
+
+
+//> Interpreter.class::evaluation
+    /**
+     * @return the value of a number, if {@link Interpreter#numeric} is set afterwards. Otherwise, the value is in
+     *         {@link Interpreter#value}.
+     **/
+    double evaluateNumber(Expr expr)
+    {
+        if (expr instanceof Expr.Binary) return binary((Expr.Binary) expr);
+        if (expr instanceof Expr.Literal) return literal(((Expr.Literal) expr).value);
+        if (expr instanceof Expr.Unary) return unary((Expr.Unary) expr);
+        return evaluateNumber(((Expr.Grouping) expr).expression);
+    }
+
+    private double literal(Object value)
+    {
+        if (value instanceof Double)
+            return number(((Double) value));
+        return other(value);
+    }
+
+    private double unary(Expr.Unary unary)
+    {
+        double right = evaluateNumber(unary.right);
+        if (profiler != null) profiler.operator(unary.operator.line);
+
+        switch (unary.operator.type)
+        {
+            case MINUS:
+                if (!numeric) throw new RuntimeError(unary.operator, "Operand must be a number.");
+                return number(-right);
+            case BANG:
+                return other(numeric ? Boolean.FALSE : (Object) !isTruthy(value));
+            default:
+                throw new RuntimeError(unary.operator, "Unknown unary operator.");
+        }
+    }
+
+    private double binary(Expr.Binary binary)
+    {
+        Token operator = binary.operator;
+        if (profiler != null) profiler.operator(operator.line);
+
+        double left = evaluateNumber(binary.left);
+        switch (operator.type)
+        {
+            case AND: if (!numeric && !isTruthy(value)) return left; return evaluateNumber(binary.right);
+            case OR: if (numeric || isTruthy(value)) return left; return evaluateNumber(binary.right);
+        }
+        boolean leftNumeric = numeric;
+        Object leftValue = value;
+
+        double right = evaluateNumber(binary.right);
+        boolean numbers = leftNumeric && numeric;
+
+        switch (operator.type)
+        {
+            case MINUS: checkNumbers(operator, numbers); return number(left - right);
+            case SLASH: checkNumbers(operator, numbers); return number(left / right);
+            case STAR: checkNumbers(operator, numbers); return number(left * right);
+            case PLUS:
+                if (numbers) return number(left + right);
+                if (!leftNumeric && !numeric && leftValue instanceof String && value instanceof String)
+                    return other((String) leftValue + value);
+                throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+
+            case GREATER: checkNumbers(operator, numbers); return other(left > right);
+            case GREATER_EQUAL: checkNumbers(operator, numbers); return other(left >= right);
+            case LESS: checkNumbers(operator, numbers); return other(left < right);
+            case LESS_EQUAL: checkNumbers(operator, numbers); return other(left <= right);
+
+            case EQUAL_EQUAL: return other(isEqual(leftNumeric, left, leftValue, right));
+            case BANG_EQUAL: return other(!isEqual(leftNumeric, left, leftValue, right));
+
+            default: throw new RuntimeError(operator, "Unknown binary operator.");
+        }
+    }
+//< Interpreter.class::evaluation
+
+
+//> Interpreter.class::utils
+    private double number(double number)
+    {
+        numeric = true;
+        return number;
+    }
+
+    private double other(Object value)
+    {
+        numeric = false;
+        this.value = value;
+        return 0;
+    }
+
+    /**
+     * Applies a unary operator to its boxed operand, as {@link Interpreter#evaluate(Expr)} does. Unlike the evaluation, it keeps
+     * no state, and can thus be called by several threads.
+     **/
+    static Object applyUnary(Token operator, Object right)
+    {
+        switch (operator.type)
+        {
+            case MINUS:
+                if (!(right instanceof Double)) throw new RuntimeError(operator, "Operand must be a number.");
+                return -(Double) right;
+            case BANG:
+                return !isTruthy(right);
+            default:
+                throw new RuntimeError(operator, "Unknown unary operator.");
+        }
+    }
+
+    /**
+     * Applies a binary operator, other than {@code and} and {@code or}, to its boxed operands, as
+     * {@link Interpreter#evaluate(Expr)} does. Unlike the evaluation, it keeps no state, and can thus be called by several
+     * threads.
+     **/
+    static Object applyBinary(Token operator, Object left, Object right)
+    {
+        boolean numbers = left instanceof Double && right instanceof Double;
+        switch (operator.type)
+        {
+            case MINUS: checkNumbers(operator, numbers); return (Double) left - (Double) right;
+            case SLASH: checkNumbers(operator, numbers); return (Double) left / (Double) right;
+            case STAR: checkNumbers(operator, numbers); return (Double) left * (Double) right;
+            case PLUS:
+                if (numbers) return (Double) left + (Double) right;
+                if (left instanceof String && right instanceof String) return (String) left + right;
+                throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+
+            case GREATER: checkNumbers(operator, numbers); return (Double) left > (Double) right;
+            case GREATER_EQUAL: checkNumbers(operator, numbers); return (Double) left >= (Double) right;
+            case LESS: checkNumbers(operator, numbers); return (Double) left < (Double) right;
+            case LESS_EQUAL: checkNumbers(operator, numbers); return (Double) left <= (Double) right;
+
+            case EQUAL_EQUAL: return Objects.equals(left, right);
+            case BANG_EQUAL: return !Objects.equals(left, right);
+
+            default: throw new RuntimeError(operator, "Unknown binary operator.");
+        }
+    }
+
+    private static void checkNumbers(Token operator, boolean numbers)
+    {
+        if (!numbers) throw new RuntimeError(operator, "Operands must be numbers.");
+    }
+
+    /**
+     * {@code nil} and {@code false} are falsey, everything else is truthy.
+     **/
+    static boolean isTruthy(Object object)
+    {
+        if (object == null) return false;
+        if (object instanceof Boolean) return (boolean) object;
+        return true;
+    }
+
+    /**
+     * Compares the left operand with the last evaluated node, numbers being equal like {@link Double#equals(Object)}.
+     **/
+    private boolean isEqual(boolean leftNumeric, double left, Object leftValue, double right)
+    {
+        if (leftNumeric != numeric) return false;
+        if (numeric) return Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+        return Objects.equals(leftValue, value);
+    }
+
+    /**
+     * @return the text of a value, the numbers without fraction being printed as integers.
+     **/
+    static String stringify(Object object)
+    {
+        if (object == null) return "nil";
+
+        if (object instanceof Double)
+        {
+            String text = object.toString();
+            if (text.endsWith(".0"))
+                text = text.substring(0, text.length() - 2);
+            return text;
+        }
+        return object.toString();
+    }
+//< Interpreter.class::utils
+}
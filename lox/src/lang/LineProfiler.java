@@ -0,0 +1,110 @@
+package lang;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * <p>Counting profiler of the {@link Interpreter}, attributing the evaluation to the lines of the script with
+ * {@link codelab.Token#line} : the time of each statement goes to the line it starts at, and each operator evaluated is counted
+ * at the line of its token.</p>
+ * <p>The times can be exported as a collapsed-stack file, as read by the flame graph tools :
+ * {@code script.lox;line 12 4051}, in microseconds.</p>
+ **/
+final class LineProfiler {
+//> LineProfiler.class::fields
+    private final String script;
+
+    /**
+     * Evaluation time of the statements starting at each line, in nanoseconds.
+     **/
+    private long[] nanos = new long[64];
+
+    /**
+     * Number of operators evaluated at each line.
+     **/
+    private long[] operators = new long[64];
+    private int lines = 0;
+//< LineProfiler.class::fields
+
+
+//> LineProfiler.class::constructors
+    /**
+     * @param script name of the script, the root frame of the collapsed stacks.
+     **/
+    LineProfiler(String script)
+    {
+        this.script = script;
+    }
+//< LineProfiler.class::constructors
+
+
+//> LineProfiler.class::recording
+    /**
+     * Counts an operator evaluated at the given line.
+     **/
+    void operator(int line)
+    {
+        ensureLine(line);
+        operators[line]++;
+    }
+
+    /**
+     * Adds the time of a statement starting at the given line.
+     **/
+    void statement(int line, long nanos)
+    {
+        ensureLine(line);
+        this.nanos[line] += nanos;
+    }
+
+    long operators(int line)
+    {
+        return line < lines ? operators[line] : 0;
+    }
+
+    private void ensureLine(int line)
+    {
+        if (line >= nanos.length)
+        {
+            nanos = Arrays.copyOf(nanos, Math.max(line + 1, nanos.length * 2));
+            operators = Arrays.copyOf(operators, nanos.length);
+        }
+        lines = Math.max(lines, line + 1);
+    }
+//< LineProfiler.class::recording
+
+
+//> LineProfiler.class::reports
+    /**
+     * Prints the {@code count} lines with the longest evaluation time.
+     **/
+    void print(PrintStream out, int count)
+    {
+        Integer[] order = new Integer[lines];
+        for (int line = 0; line < lines; line++) order[line] = line;
+        Arrays.sort(order, (a, b) -> Long.compare(nanos[b], nanos[a]));
+
+        out.printf("%-10s %12s %14s%n", "line", "time (us)", "operators");
+        for (int i = 0; i < Math.min(count, lines) && nanos[order[i]] > 0; i++)
+            out.printf("%-10d %12d %14d%n", order[i], nanos[order[i]] / 1000, operators[order[i]]);
+    }
+
+    /**
+     * Writes the time of every line as a collapsed stack, in microseconds.
+     **/
+    void writeCollapsed(Path path) throws IOException
+    {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8)))
+        {
+            for (int line = 0; line < lines; line++)
+                if (nanos[line] >= 1000)
+                    writer.println(script + ";line " + line + " " + nanos[line] / 1000);
+        }
+    }
+//< LineProfiler.class::reports
+}
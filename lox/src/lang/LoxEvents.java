@@ -0,0 +1,52 @@
+package lang;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * <p>Java Flight Recorder events of the {@link StatsRunner}, recorded with e.g.
+ * {@code -XX:StartFlightRecording=filename=lox.jfr}. They cost nothing while no recording is running.</p>
+ **/
+final class LoxEvents {
+
+    private LoxEvents() { }
+
+
+    @Name("lox.Phase")
+    @Label("Lox Phase")
+    @Category("Lox")
+    @Description("A phase of the processing of a script : read, decode, lex, parse or evaluate.")
+    static final class Phase extends Event
+    {
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        @Label("Items")
+        long items;
+
+        @Label("Unit")
+        String unit;
+    }
+
+
+    @Name("lox.Statement")
+    @Label("Lox Statement")
+    @Category("Lox")
+    @Description("The evaluation of a statement of a script.")
+    static final class Statement extends Event
+    {
+        @Label("Line")
+        int line;
+
+        @Label("Operators")
+        long operators;
+    }
+}
@@ -0,0 +1,51 @@
+package lang;
+
+/**
+ * <p>Contains the instructions of a {@link Chunk}, each encoded on a single byte.</p>
+ * <p>{@link OpCode#CONSTANT} and the jumps are followed by a big-endian {@code u16} operand. The instructions are plain
+ * {@code byte} constants rather than an enumeration, so that the {@link VM} dispatches on the code without a lookup.</p>
+ **/
+final class OpCode {
+
+    private OpCode() { }
+
+
+    // Values.
+    static final byte CONSTANT = 0, NIL = 1, TRUE = 2, FALSE = 3;
+
+    // Unary operators.
+    static final byte NEGATE = 4, NOT = 5;
+
+    // Binary operators.
+    static final byte ADD = 6, SUBTRACT = 7, MULTIPLY = 8, DIVIDE = 9;
+    static final byte EQUAL = 10, NOT_EQUAL = 11, GREATER = 12, GREATER_EQUAL = 13, LESS = 14, LESS_EQUAL = 15;
+
+    // Control flow, for the logical operators.
+    static final byte JUMP_IF_FALSE = 16, JUMP_IF_TRUE = 17, POP = 18;
+
+    static final byte RETURN = 19;
+
+    /**
+     * Names of the instructions, indexed by their code.
+     **/
+    static final String[] NAMES = {
+            "CONSTANT", "NIL", "TRUE", "FALSE",
+            "NEGATE", "NOT",
+            "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE",
+            "EQUAL", "NOT_EQUAL", "GREATER", "GREATER_EQUAL", "LESS", "LESS_EQUAL",
+            "JUMP_IF_FALSE", "JUMP_IF_TRUE", "POP",
+            "RETURN"
+    };
+
+    /**
+     * @return the number of operand bytes following the instruction.
+     **/
+    static int operands(byte op)
+    {
+        switch (op)
+        {
+            case CONSTANT: case JUMP_IF_FALSE: case JUMP_IF_TRUE: return 2;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package lang;
+
+import codelab.Lox;
+import codelab.TokenBuffer;
+import codelab.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * <p>Pratt parser of the expressions of a {@link TokenBuffer}, writing the nodes directly into an {@link ExprArena} : no
+ * {@link codelab.Token} nor {@link Expr} object is created while parsing.</p>
+ * <p>A program is a sequence of {@code expression ;} statements. After a syntax error, the parser reports it through
+ * {@link Lox#error(codelab.Token, String)}, and skips to the next statement.</p>
+ **/
+class Parser {
+//> Parser.class::precedences
+    private static final int NONE = 0;
+    private static final int OR = 1;
+    private static final int AND = 2;
+    private static final int EQUALITY = 3;
+    private static final int COMPARISON = 4;
+    private static final int TERM = 5;
+    private static final int FACTOR = 6;
+    private static final int UNARY = 7;
+
+    /**
+     * Precedence of the binary operators, indexed by the ordinal of their {@link TokenType}.
+     **/
+    private static final int[] INFIX = new int[TokenType.values().length];
+
+    static
+    {
+        INFIX[TokenType.OR.ordinal()] = OR;
+        INFIX[TokenType.AND.ordinal()] = AND;
+        INFIX[TokenType.EQUAL_EQUAL.ordinal()] = EQUALITY;
+        INFIX[TokenType.BANG_EQUAL.ordinal()] = EQUALITY;
+        INFIX[TokenType.GREATER.ordinal()] = COMPARISON;
+        INFIX[TokenType.GREATER_EQUAL.ordinal()] = COMPARISON;
+        INFIX[TokenType.LESS.ordinal()] = COMPARISON;
+        INFIX[TokenType.LESS_EQUAL.ordinal()] = COMPARISON;
+        INFIX[TokenType.PLUS.ordinal()] = TERM;
+        INFIX[TokenType.MINUS.ordinal()] = TERM;
+        INFIX[TokenType.STAR.ordinal()] = FACTOR;
+        INFIX[TokenType.SLASH.ordinal()] = FACTOR;
+    }
+//< Parser.class::precedences
+
+
+//> Parser.class::fields
+    private static class ParseError extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        ParseError()
+        {
+            super(null, null, false, false);
+        }
+    }
+
+    private final TokenBuffer tokens;
+    private final ExprArena arena;
+    private int current = 0;
+//< Parser.class::fields
+
+
+//> Parser.class::constructors
+    /**
+     * @param tokens the tokens to parse, ending with the {@link TokenType#EOF} token, as by
+     *               {@link codelab.Lexer#scanBuffer()}.
+     **/
+    Parser(TokenBuffer tokens)
+    {
+        this.tokens = tokens;
+        this.arena = new ExprArena(tokens, tokens.size());
+    }
+//< Parser.class::constructors
+
+
+//> Parser.class::entry-point
+    /**
+     * @return the root nodes of the statements parsed without error, in the {@link Parser#arena()}.
+     **/
+    int[] parse()
+    {
+        int[] roots = new int[16];
+        int count = 0;
+
+        while (!isAtEnd())
+        {
+            try
+            {
+                int root = expression();
+                consume(TokenType.SEMICOLON, "Expect ';' after expression.");
+                if (count == roots.length) roots = Arrays.copyOf(roots, count * 2);
+                roots[count++] = root;
+            }
+            catch (ParseError error)
+            {
+                synchronize();
+            }
+        }
+        return Arrays.copyOf(roots, count);
+    }
+
+    ExprArena arena()
+    {
+        return arena;
+    }
+//< Parser.class::entry-point
+
+
+//> Parser.class::expressions
+    private int expression()
+    {
+        return parsePrecedence(OR);
+    }
+
+    /**
+     * Parses a prefix expression, then the binary operators binding at least as tightly as {@code precedence}, all of them
+     * being left-associative.
+     **/
+    private int parsePrecedence(int precedence)
+    {
+        int left = prefix();
+
+        for (;;)
+        {
+            int operator = current;
+            int infix = INFIX[tokens.type(operator).ordinal()];
+            // NONE, for the tokens that are not binary operators, is below every precedence.
+            if (infix < precedence) return left;
+
+            current++;
+            left = arena.binary(left, operator, parsePrecedence(infix + 1));
+        }
+    }
+
+    private int prefix()
+    {
+        int token = current;
+        switch (tokens.type(token))
+        {
+            case NUMBER: case STRING: case TRUE: case FALSE: case NIL:
+                current++;
+                return arena.literal(token);
+
+            case LEFT_PAREN:
+            {
+                current++;
+                int expression = expression();
+                consume(TokenType.RIGHT_PAREN, "Expect ')' after expression.");
+                return arena.grouping(expression);
+            }
+
+            case BANG: case MINUS:
+                current++;
+                return arena.unary(token, parsePrecedence(UNARY));
+
+            default:
+                throw error(token, "Expect expression.");
+        }
+    }
+//< Parser.class::expressions
+
+
+//> Parser.class::utils
+    private boolean isAtEnd()
+    {
+        return tokens.type(current) == TokenType.EOF;
+    }
+
+    private void consume(TokenType type, String message)
+    {
+        if (tokens.type(current) != type) throw error(current, message);
+        current++;
+    }
+
+    private ParseError error(int token, String message)
+    {
+        Lox.error(tokens.token(token), message);
+        return new ParseError();
+    }
+
+    /**
+     * Skips the tokens until the start of the next statement.
+     **/
+    private void synchronize()
+    {
+        while (!isAtEnd())
+        {
+            switch (tokens.type(current++))
+            {
+                case SEMICOLON:
+                    return;
+            }
+            switch (tokens.type(current))
+            {
+                case CLASS: case FUN: case VAR: case FOR: case IF: case WHILE: case PRINT: case RETURN:
+                    return;
+            }
+        }
+    }
+//< Parser.class::utils
+}
@@ -0,0 +1,498 @@
+package lang;
+
+import codelab.Lox;
+import codelab.TokenBuffer;
+import codelab.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * <p>Lexical resolution pass over the tokens of a program, that gives each variable its {@code (depth, slot)} : the
+ * environments can then be arrays of slots, sized by {@link Resolver#scopeSize(int)}, and no variable is looked up by name
+ * at runtime.</p>
+ * <ul>
+ *     <li>A local variable is at {@code depth} scopes above the current one, at the index {@code slot} of its declaration
+ *     in that scope.</li>
+ *     <li>A global variable, declared outside any scope or never declared, has the depth {@link Resolver#GLOBAL} and its
+ *     symbol ID as slot.</li>
+ *     <li>The property names following a {@code .} are left {@link Resolver#UNRESOLVED}, and stay dynamic.</li>
+ * </ul>
+ * <p>The scopes are those of the jlox environments : the blocks, the functions (their parameters and body), the
+ * {@code for} loops declaring a variable, and the {@code this} and {@code super} scopes around the methods of a class, both
+ * holding their single variable in the slot {@code 0}.</p>
+ **/
+public class Resolver {
+//> Resolver.class::constants
+    /**
+     * Depth of a global variable, whose slot is its symbol ID.
+     **/
+    static final int GLOBAL = -1;
+
+    /**
+     * Depth of the tokens that are not variables, such as the property names.
+     **/
+    static final int UNRESOLVED = -2;
+
+    private static final int BLOCK = 0;
+    private static final int FUNCTION = 1;
+    private static final int FOR = 2;
+    private static final int CLASS = 3;
+    private static final int SUPERCLASS = 4;
+
+    private static final int THEN = 0;
+    private static final int ELSE = 1;
+    private static final int LOOP = 2;
+//< Resolver.class::constants
+
+
+//> Resolver.class::fields
+    private final TokenBuffer tokens;
+    private final int[] depths;
+    private final int[] slots;
+
+    /**
+     * Stack of the scopes : their kind, the token opening them, their number of slots, the number of bindings when they were
+     * opened, and for a function, the depth of the parentheses of its parameters while they are open, {@code -1} after.
+     **/
+    private int[] frameKinds = new int[16];
+    private int[] frameOpeners = new int[16];
+    private int[] frameSizes = new int[16];
+    private int[] frameMarks = new int[16];
+    private int[] frameHeaders = new int[16];
+    private int frameCount = 0;
+
+    /**
+     * Stack of the statements whose end depends on the end of a nested statement : the branches of the {@code if} statements
+     * and the {@code for} loops. Each holds its kind, the number of scopes when it started, the depth of the parentheses of the
+     * header of a loop while it is open, {@code -1} after, and whether the loop has its own scope.
+     **/
+    private int[] controlKinds = new int[16];
+    private int[] controlLevels = new int[16];
+    private int[] controlHeaders = new int[16];
+    private boolean[] controlScopes = new boolean[16];
+    private int controlCount = 0;
+
+    /**
+     * Stack of the local variables in scope, each shadowing the {@code previous} binding of its symbol, if any.
+     **/
+    private int[] bindingSymbols = new int[16];
+    private int[] bindingFrames = new int[16];
+    private int[] bindingSlots = new int[16];
+    private int[] bindingPrevious = new int[16];
+    private boolean[] bindingDefined = new boolean[16];
+    private int bindingCount = 0;
+
+    /**
+     * Innermost binding of each symbol, {@code -1} if none.
+     **/
+    private int[] innermost;
+
+    private int parentheses = 0;
+    private boolean pendingFunction = false;
+    private boolean pendingFor = false;
+    private boolean pendingClass = false;
+    private boolean pendingBody = false;
+
+    /**
+     * Binding of the variable whose initializer is being resolved, {@code -1} if none.
+     **/
+    private int pendingVar = -1;
+
+    private int localLookups = 0;
+    private int globalLookups = 0;
+    private int propertyLookups = 0;
+//< Resolver.class::fields
+
+
+//> Resolver.class::constructors
+    /**
+     * @param tokens the tokens of the program, whose identifiers carry their symbol ID, as by
+     *               {@link codelab.Lexer#scanBuffer()}.
+     **/
+    public Resolver(TokenBuffer tokens)
+    {
+        this.tokens = tokens;
+        this.depths = new int[tokens.size()];
+        this.slots = new int[tokens.size()];
+        Arrays.fill(depths, UNRESOLVED);
+        this.innermost = new int[Math.max(tokens.symbolTable().size(), 16)];
+        Arrays.fill(innermost, -1);
+    }
+//< Resolver.class::constructors
+
+
+//> Resolver.class::accessors
+    /**
+     * @return the number of scopes between the use of the variable at the given token and its declaration,
+     *         {@link Resolver#GLOBAL} or {@link Resolver#UNRESOLVED}.
+     **/
+    int depth(int token)
+    {
+        return depths[token];
+    }
+
+    /**
+     * @return the slot of the variable at the given token in its scope, or its symbol ID if it is global.
+     **/
+    int slot(int token)
+    {
+        return slots[token];
+    }
+
+    /**
+     * @return the number of slots of the scope opened by the given token : the {@code {} of a block or a class, the
+     *         {@code (} of the parameters of a function or of the header of a loop, or the {@code <} of a superclass.
+     **/
+    int scopeSize(int token)
+    {
+        return slots[token];
+    }
+
+    /**
+     * @return the number of lookups, of variables and properties.
+     **/
+    public int lookups()
+    {
+        return localLookups + globalLookups + propertyLookups;
+    }
+
+    /**
+     * @return the number of lookups resolved to a slot, that is every variable lookup.
+     **/
+    public int staticLookups()
+    {
+        return localLookups + globalLookups;
+    }
+
+    /**
+     * @return e.g. {@code 120 lookups, 110 static (90 local, 20 global), 10 dynamic properties}.
+     **/
+    public String summary()
+    {
+        return lookups() + " lookups, " + staticLookups() + " static (" + localLookups + " local, " + globalLookups
+                + " global), " + propertyLookups + " dynamic properties";
+    }
+//< Resolver.class::accessors
+
+
+//> Resolver.class::resolution
+    public void resolve()
+    {
+        int size = tokens.size();
+        for (int i = 0; i < size; i++)
+        {
+            switch (tokens.type(i))
+            {
+                case LEFT_PAREN:
+                    if (pendingFunction)
+                    {
+                        push(FUNCTION, i);
+                        frameHeaders[frameCount - 1] = parentheses;
+                        pendingFunction = false;
+                    }
+                    else if (pendingFor)
+                    {
+                        // Like the desugared jlox loop, only a loop declaring a variable has its own scope.
+                        boolean scope = tokens.type(i + 1) == TokenType.VAR;
+                        if (scope) push(FOR, i);
+                        pushControl(LOOP, scope);
+                        controlHeaders[controlCount - 1] = parentheses;
+                        pendingFor = false;
+                    }
+                    parentheses++;
+                    break;
+
+                case RIGHT_PAREN:
+                    parentheses--;
+                    if (frameCount > 0 && frameHeaders[frameCount - 1] == parentheses)
+                    {
+                        frameHeaders[frameCount - 1] = -1;
+                        pendingBody = true;
+                    }
+                    else if (controlCount > 0 && controlHeaders[controlCount - 1] == parentheses)
+                        controlHeaders[controlCount - 1] = -1;
+                    break;
+
+                case LEFT_BRACE:
+                    if (pendingClass)
+                    {
+                        push(CLASS, i);
+                        frameSizes[frameCount - 1] = 1;
+                        pendingClass = false;
+                    }
+                    else if (pendingBody) pendingBody = false;
+                    else push(BLOCK, i);
+                    break;
+
+                case RIGHT_BRACE:
+                    if (frameCount == 0) break;
+                    if (pop() == CLASS && frameCount > 0 && frameKinds[frameCount - 1] == SUPERCLASS) pop();
+                    while (controlCount > 0 && controlLevels[controlCount - 1] > frameCount)
+                        controlCount--;
+                    endStatement(i);
+                    break;
+
+                case SEMICOLON:
+                    if (pendingVar >= 0)
+                    {
+                        bindingDefined[pendingVar] = true;
+                        pendingVar = -1;
+                    }
+                    if (controlCount > 0 && controlHeaders[controlCount - 1] >= 0) break;
+                    endStatement(i);
+                    break;
+
+                case IF:
+                    pushControl(THEN, false);
+                    break;
+
+                case VAR:
+                    if (tokens.type(i + 1) != TokenType.IDENTIFIER) break;
+                    pendingVar = declare(++i, false);
+                    break;
+
+                case FUN:
+                    if (tokens.type(i + 1) != TokenType.IDENTIFIER) break;
+                    declare(++i, true);
+                    pendingFunction = true;
+                    break;
+
+                case FOR:
+                    pendingFor = true;
+                    break;
+
+                case CLASS:
+                    if (tokens.type(i + 1) != TokenType.IDENTIFIER) break;
+                    declare(++i, true);
+                    pendingClass = true;
+                    if (tokens.type(i + 1) == TokenType.LESS && tokens.type(i + 2) == TokenType.IDENTIFIER)
+                    {
+                        if (tokens.symbol(i + 2) == tokens.symbol(i))
+                            Lox.error(tokens.token(i + 2), "A class can't inherit from itself.");
+                        use(i + 2);
+                        push(SUPERCLASS, i + 1);
+                        frameSizes[frameCount - 1] = 1;
+                        i += 2;
+                    }
+                    break;
+
+                case THIS:
+                    resolveClassScope(i, CLASS, "Can't use 'this' outside of a class.");
+                    break;
+
+                case SUPER:
+                    resolveClassScope(i, SUPERCLASS, "Can't use 'super' outside of a class.");
+                    break;
+
+                case RETURN:
+                    if (enclosing(FUNCTION) < 0) Lox.error(tokens.token(i), "Can't return from top-level code.");
+                    break;
+
+                case IDENTIFIER:
+                    identifier(i);
+                    break;
+            }
+        }
+
+        while (frameCount > 0)
+            pop();
+    }
+
+    private void identifier(int token)
+    {
+        int top = frameCount - 1;
+
+        if (token > 0 && tokens.type(token - 1) == TokenType.DOT)
+            propertyLookups++;
+        else if (top >= 0 && frameKinds[top] == FUNCTION && frameHeaders[top] >= 0)
+            declare(token, true);
+        else if (top >= 0 && frameKinds[top] == CLASS && tokens.type(token + 1) == TokenType.LEFT_PAREN)
+            pendingFunction = true;
+        else
+            use(token);
+    }
+
+    /**
+     * Resolves a variable to its innermost binding, or to the global variable of its symbol.
+     **/
+    private void use(int token)
+    {
+        int symbol = tokens.symbol(token);
+        int binding = symbol < innermost.length ? innermost[symbol] : -1;
+
+        if (binding < 0)
+        {
+            depths[token] = GLOBAL;
+            slots[token] = symbol;
+            globalLookups++;
+            return;
+        }
+
+        if (!bindingDefined[binding])
+            Lox.error(tokens.token(token), "Can't read local variable in its own initializer.");
+        depths[token] = frameCount - 1 - bindingFrames[binding];
+        slots[token] = bindingSlots[binding];
+        localLookups++;
+    }
+
+    /**
+     * Resolves {@code this} or {@code super} to the slot {@code 0} of the innermost scope of the given kind.
+     **/
+    private void resolveClassScope(int token, int kind, String outside)
+    {
+        int frame = enclosing(CLASS);
+        if (frame < 0)
+        {
+            Lox.error(tokens.token(token), outside);
+            return;
+        }
+        if (kind == SUPERCLASS)
+        {
+            if (frame == 0 || frameKinds[--frame] != SUPERCLASS)
+            {
+                Lox.error(tokens.token(token), "Can't use 'super' in a class with no superclass.");
+                return;
+            }
+        }
+        depths[token] = frameCount - 1 - frame;
+        slots[token] = 0;
+        localLookups++;
+    }
+
+    /**
+     * Declares the variable at the given token in the current scope, or as a global outside any scope.
+     * @param defined false for a variable that can't be read before the end of its initializer.
+     * @return its binding, {@code -1} if it is global.
+     **/
+    private int declare(int token, boolean defined)
+    {
+        int symbol = tokens.symbol(token);
+        if (frameCount == 0)
+        {
+            depths[token] = GLOBAL;
+            slots[token] = symbol;
+            return -1;
+        }
+
+        if (symbol >= innermost.length)
+        {
+            int size = innermost.length;
+            innermost = Arrays.copyOf(innermost, Math.max(symbol + 1, size * 2));
+            Arrays.fill(innermost, size, innermost.length, -1);
+        }
+
+        int top = frameCount - 1;
+        int previous = innermost[symbol];
+        if (previous >= 0 && bindingFrames[previous] == top)
+            Lox.error(tokens.token(token), "Already a variable with this name in this scope.");
+
+        if (bindingCount == bindingSymbols.length)
+        {
+            int capacity = bindingCount * 2;
+            bindingSymbols = Arrays.copyOf(bindingSymbols, capacity);
+            bindingFrames = Arrays.copyOf(bindingFrames, capacity);
+            bindingSlots = Arrays.copyOf(bindingSlots, capacity);
+            bindingPrevious = Arrays.copyOf(bindingPrevious, capacity);
+            bindingDefined = Arrays.copyOf(bindingDefined, capacity);
+        }
+        int binding = bindingCount++;
+        bindingSymbols[binding] = symbol;
+        bindingFrames[binding] = top;
+        bindingSlots[binding] = frameSizes[top]++;
+        bindingPrevious[binding] = previous;
+        bindingDefined[binding] = defined;
+        innermost[symbol] = binding;
+
+        depths[token] = 0;
+        slots[token] = bindingSlots[binding];
+        return binding;
+    }
+//< Resolver.class::resolution
+
+
+//> Resolver.class::scopes
+    private void push(int kind, int opener)
+    {
+        if (frameCount == frameKinds.length)
+        {
+            int capacity = frameCount * 2;
+            frameKinds = Arrays.copyOf(frameKinds, capacity);
+            frameOpeners = Arrays.copyOf(frameOpeners, capacity);
+            frameSizes = Arrays.copyOf(frameSizes, capacity);
+            frameMarks = Arrays.copyOf(frameMarks, capacity);
+            frameHeaders = Arrays.copyOf(frameHeaders, capacity);
+        }
+        frameKinds[frameCount] = kind;
+        frameOpeners[frameCount] = opener;
+        frameSizes[frameCount] = 0;
+        frameMarks[frameCount] = bindingCount;
+        frameHeaders[frameCount] = -1;
+        frameCount++;
+    }
+
+    /**
+     * Closes the current scope, recording its size at its opening token.
+     * @return its kind.
+     **/
+    private int pop()
+    {
+        int top = --frameCount;
+        for (int binding = bindingCount - 1; binding >= frameMarks[top]; binding--)
+            innermost[bindingSymbols[binding]] = bindingPrevious[binding];
+        bindingCount = frameMarks[top];
+        if (pendingVar >= bindingCount) pendingVar = -1;
+
+        slots[frameOpeners[top]] = frameSizes[top];
+        return frameKinds[top];
+    }
+
+    /**
+     * Ends the statements whose last statement ends at the given token, within the current scope : the loops, closing their
+     * scope, and the {@code if} statements, unless an {@code else} follows their then-branch.
+     **/
+    private void endStatement(int token)
+    {
+        while (controlCount > 0 && controlLevels[controlCount - 1] == frameCount)
+        {
+            int top = controlCount - 1;
+            if (controlKinds[top] == THEN && tokens.type(token + 1) == TokenType.ELSE)
+            {
+                controlKinds[top] = ELSE;
+                return;
+            }
+            controlCount--;
+            if (controlKinds[top] == LOOP && controlScopes[top]) pop();
+        }
+    }
+
+    /**
+     * Starts a statement in the current scope, after its scope if the statement is a loop with one.
+     **/
+    private void pushControl(int kind, boolean scope)
+    {
+        if (controlCount == controlKinds.length)
+        {
+            int capacity = controlCount * 2;
+            controlKinds = Arrays.copyOf(controlKinds, capacity);
+            controlLevels = Arrays.copyOf(controlLevels, capacity);
+            controlHeaders = Arrays.copyOf(controlHeaders, capacity);
+            controlScopes = Arrays.copyOf(controlScopes, capacity);
+        }
+        controlKinds[controlCount] = kind;
+        controlLevels[controlCount] = frameCount;
+        controlHeaders[controlCount] = -1;
+        controlScopes[controlCount] = scope;
+        controlCount++;
+    }
+
+    /**
+     * @return the innermost scope of the given kind, {@code -1} if none.
+     **/
+    private int enclosing(int kind)
+    {
+        for (int frame = frameCount - 1; frame >= 0; frame--)
+            if (frameKinds[frame] == kind) return frame;
+        return -1;
+    }
+//< Resolver.class::scopes
+}
@@ -0,0 +1,22 @@
+package lang;
+
+import codelab.Token;
+
+/**
+ * Error raised while evaluating an expression, at the given {@link RuntimeError#token}.
+ **/
+public class RuntimeError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public RuntimeError(Token token, String message)
+    {
+        super(message);
+        this.token = token;
+    }
+
+
+    /**
+     * The token whose evaluation failed, giving the line of the error.
+     **/
+    public final Token token;
+}
@@ -0,0 +1,179 @@
+package lang;
+
+import codelab.Lexer;
+import codelab.Lox;
+import codelab.LoxContext;
+import codelab.TokenBuffer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>Runs a script phase by phase, and reports the wall time, the bytes allocated by the calling thread and the throughput
+ * of each of them : read, decode, lex, parse, convert from the {@link ExprArena} to the {@link Expr} trees, fold their
+ * constants by the {@link ConstantFolder}, and evaluate.</p>
+ * <p>The evaluation is profiled by a {@link LineProfiler}, and every phase and statement is also emitted as a
+ * {@link LoxEvents} JFR event.</p>
+ * <p><strong>Output :</strong> {@code lex        12.345 ms    1048576 B    8.1e+07 tokens/s}</p>
+ **/
+public final class StatsRunner {
+
+    private StatsRunner() { }
+
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * A measured phase.
+     **/
+    private interface Phase<T>
+    {
+        T run() throws IOException;
+    }
+
+
+//> StatsRunner.class::entry-point
+    /**
+     * Runs the script, and prints its statistics to the {@link LoxContext#current()} output.
+     * @param collapsed the file to write the collapsed stacks of the profile to, or {@code null}.
+     **/
+    public static void run(Path script, Path collapsed) throws IOException
+    {
+        PrintStream out = LoxContext.current().out();
+        out.printf("%-10s %12s %16s %20s%n", "phase", "wall (ms)", "allocated (B)", "throughput");
+
+        byte[] bytes = measure(out, "read", "bytes", () -> Files.readAllBytes(script), read -> read.length);
+        String source = measure(out, "decode", "chars", () -> new String(bytes, Charset.defaultCharset()), String::length);
+        TokenBuffer tokens = measure(out, "lex", "tokens", () -> new Lexer(source).scanBuffer(), TokenBuffer::size);
+
+        Parser parser = new Parser(tokens);
+        int[] roots = measure(out, "parse", "nodes", parser::parse, parsed -> parser.arena().size());
+
+        ExprArena arena = parser.arena();
+        Expr[] statements = measure(out, "convert", "statements", () -> convert(arena, roots), converted -> converted.length);
+        measure(out, "fold", "statements", () -> fold(statements), folded -> folded.length);
+
+        LineProfiler profiler = new LineProfiler(script.getFileName().toString());
+        measure(out, "evaluate", "nodes", () -> {
+            evaluate(arena, roots, statements, profiler);
+            return roots;
+        }, evaluated -> arena.size());
+
+        out.println();
+        profiler.print(out, 10);
+        if (collapsed != null) profiler.writeCollapsed(collapsed);
+    }
+//< StatsRunner.class::entry-point
+
+
+//> StatsRunner.class::phases
+    /**
+     * @return the {@link Expr} tree of each root, for the {@link Interpreter}. The trees are created by a single
+     *         {@link ExprFactory}, so that their repeated literals and subtrees are shared.
+     **/
+    private static Expr[] convert(ExprArena arena, int[] roots)
+    {
+        ExprFactory factory = new ExprFactory();
+        Expr[] statements = new Expr[roots.length];
+        for (int i = 0; i < roots.length; i++)
+            statements[i] = arena.toExpr(roots[i], factory);
+        return statements;
+    }
+
+    /**
+     * Replaces each statement by its {@link ConstantFolder#fold(Expr)}, in place.
+     * @return {@code statements}.
+     **/
+    private static Expr[] fold(Expr[] statements)
+    {
+        ConstantFolder folder = new ConstantFolder();
+        for (int i = 0; i < statements.length; i++)
+            statements[i] = folder.fold(statements[i]);
+        return statements;
+    }
+
+    /**
+     * Evaluates the statements one at a time, timing each of them at the first line of its root.
+     **/
+    private static void evaluate(ExprArena arena, int[] roots, Expr[] statements, LineProfiler profiler)
+    {
+        Interpreter interpreter = new Interpreter();
+        interpreter.profiler = profiler;
+
+        for (int i = 0; i < roots.length; i++)
+        {
+            int line = arena.tokens.line(firstToken(arena, roots[i]));
+            LoxEvents.Statement event = new LoxEvents.Statement();
+            event.begin();
+            long time = System.nanoTime();
+            long operators = profiler.operators(line);
+            try
+            {
+                interpreter.evaluate(statements[i]);
+            }
+            catch (RuntimeError error)
+            {
+                Lox.runtimeError(error);
+            }
+            profiler.statement(line, System.nanoTime() - time);
+
+            event.line = line;
+            event.operators = profiler.operators(line) - operators;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the first token of the expression, that is the leftmost one.
+     **/
+    private static int firstToken(ExprArena arena, int node)
+    {
+        for (;;)
+        {
+            switch (arena.kind(node))
+            {
+                case ExprArena.BINARY: node = arena.binaryLeft(node); break;
+                case ExprArena.GROUPING: node = arena.groupingExpression(node); break;
+                case ExprArena.UNARY: return arena.unaryOperator(node);
+                default: return arena.literalValue(node);
+            }
+        }
+    }
+
+    /**
+     * Runs and measures a phase, prints its statistics, and emits its event.
+     * @param items the number of items processed by the phase, from its result.
+     **/
+    private static <T> T measure(PrintStream out, String name, String unit, Phase<T> phase,
+                                 ToLongFunction<T> items) throws IOException
+    {
+        LoxEvents.Phase event = new LoxEvents.Phase();
+        event.begin();
+        long thread = Thread.currentThread().getId();
+        long bytes = THREADS.getThreadAllocatedBytes(thread);
+        long time = System.nanoTime();
+
+        T result = phase.run();
+
+        time = System.nanoTime() - time;
+        bytes = THREADS.getThreadAllocatedBytes(thread) - bytes;
+        long count = items.applyAsLong(result);
+        event.end();
+
+        out.printf("%-10s %12.3f %16d %14.4g %s/s%n", name, time / 1e6, bytes, count * 1e9 / Math.max(time, 1), unit);
+
+        event.phase = name;
+        event.allocated = bytes;
+        event.items = count;
+        event.unit = unit;
+        event.commit();
+        return result;
+    }
+//< StatsRunner.class::phases
+}
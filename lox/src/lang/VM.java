@@ -0,0 +1,195 @@
+package lang;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>Stack-based virtual machine, running the {@link Chunk} built by the {@link Compiler}.</p>
+ * <p><strong>Values :</strong> the stack is a {@code long[]} of NaN-boxed values. A number is stored as the bits of its
+ * {@code double}, its NaN being canonical. The other values are quiet NaNs with the sign bit clear, tagged {@link VM#NIL},
+ * {@link VM#FALSE} and {@link VM#TRUE}, or {@link VM#OBJECT} with the sign bit set, its object being in the parallel
+ * {@code Object[]} of references. Arithmetic thus never allocates, and the equality of two numbers, as by
+ * {@link Double#equals(Object)}, is the equality of their bits.</p>
+ **/
+class VM {
+//> VM.class::values
+    private static final long QNAN = 0x7ffc000000000000L;
+    static final long NIL = QNAN | 1;
+    static final long FALSE = QNAN | 2;
+    static final long TRUE = QNAN | 3;
+    static final long OBJECT = 0x8000000000000000L | QNAN;
+
+    static long number(double value)
+    {
+        return Double.doubleToLongBits(value);
+    }
+
+    static boolean isNumber(long value)
+    {
+        return (value & QNAN) != QNAN;
+    }
+
+    private static boolean isFalsey(long value)
+    {
+        return value == NIL || value == FALSE;
+    }
+
+    private static long bool(boolean value)
+    {
+        return value ? TRUE : FALSE;
+    }
+//< VM.class::values
+
+
+//> VM.class::fields
+    private long[] stack = new long[16];
+    private Object[] references = new Object[16];
+//< VM.class::fields
+
+
+//> VM.class::interpreter
+    /**
+     * @return the value of the chunk, a {@code Double}, {@code Boolean}, {@code String} or {@code null}, as
+     *         {@link Interpreter#evaluate(Expr)}.
+     **/
+    Object run(Chunk chunk)
+    {
+        if (stack.length < chunk.maxStack)
+        {
+            stack = new long[chunk.maxStack];
+            references = new Object[chunk.maxStack];
+        }
+        long[] stack = this.stack;
+        Object[] references = this.references;
+        byte[] code = chunk.code;
+        long[] constants = chunk.constants;
+        Object[] constantReferences = chunk.references;
+        int ip = 0;
+        int sp = 0;
+
+        for (;;)
+        {
+            byte op = code[ip++];
+            switch (op)
+            {
+                case OpCode.CONSTANT:
+                {
+                    int index = (code[ip] & 0xff) << 8 | code[ip + 1] & 0xff;
+                    stack[sp] = constants[index];
+                    references[sp++] = constantReferences[index];
+                    ip += 2;
+                    break;
+                }
+                case OpCode.NIL: stack[sp++] = NIL; break;
+                case OpCode.TRUE: stack[sp++] = TRUE; break;
+                case OpCode.FALSE: stack[sp++] = FALSE; break;
+
+                case OpCode.NEGATE:
+                    if (!isNumber(stack[sp - 1])) throw error(chunk, ip - 1, "Operand must be a number.");
+                    stack[sp - 1] = number(-Double.longBitsToDouble(stack[sp - 1]));
+                    break;
+                case OpCode.NOT:
+                    stack[sp - 1] = bool(isFalsey(stack[sp - 1]));
+                    references[sp - 1] = null;
+                    break;
+
+                case OpCode.ADD:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (isNumber(a) && isNumber(b))
+                        stack[sp - 2] = number(Double.longBitsToDouble(a) + Double.longBitsToDouble(b));
+                    else if (a == OBJECT && b == OBJECT && references[sp - 2] instanceof String && references[sp - 1] instanceof String)
+                        references[sp - 2] = (String) references[sp - 2] + references[sp - 1];
+                    else throw error(chunk, ip - 1, "Operands must be two numbers or two strings.");
+                    references[--sp] = null;
+                    break;
+                }
+                case OpCode.SUBTRACT:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b)) throw error(chunk, ip - 1, "Operands must be numbers.");
+                    stack[--sp - 1] = number(Double.longBitsToDouble(a) - Double.longBitsToDouble(b));
+                    break;
+                }
+                case OpCode.MULTIPLY:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b)) throw error(chunk, ip - 1, "Operands must be numbers.");
+                    stack[--sp - 1] = number(Double.longBitsToDouble(a) * Double.longBitsToDouble(b));
+                    break;
+                }
+                case OpCode.DIVIDE:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b)) throw error(chunk, ip - 1, "Operands must be numbers.");
+                    stack[--sp - 1] = number(Double.longBitsToDouble(a) / Double.longBitsToDouble(b));
+                    break;
+                }
+
+                case OpCode.GREATER: case OpCode.GREATER_EQUAL: case OpCode.LESS: case OpCode.LESS_EQUAL:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    if (!isNumber(a) || !isNumber(b)) throw error(chunk, ip - 1, "Operands must be numbers.");
+                    stack[--sp - 1] = bool(compare(op, Double.longBitsToDouble(a), Double.longBitsToDouble(b)));
+                    break;
+                }
+
+                case OpCode.EQUAL: case OpCode.NOT_EQUAL:
+                {
+                    long a = stack[sp - 2], b = stack[sp - 1];
+                    boolean equal = a == b && (a != OBJECT || Objects.equals(references[sp - 2], references[sp - 1]));
+                    stack[sp - 2] = bool(equal == (op == OpCode.EQUAL));
+                    references[sp - 2] = null;
+                    references[--sp] = null;
+                    break;
+                }
+
+                case OpCode.JUMP_IF_FALSE: case OpCode.JUMP_IF_TRUE:
+                    if (isFalsey(stack[sp - 1]) == (op == OpCode.JUMP_IF_FALSE))
+                        ip += (code[ip] & 0xff) << 8 | code[ip + 1] & 0xff;
+                    ip += 2;
+                    break;
+                case OpCode.POP: references[--sp] = null; break;
+
+                case OpCode.RETURN:
+                {
+                    long value = stack[--sp];
+                    Object reference = references[sp];
+                    references[sp] = null;
+                    return box(value, reference);
+                }
+
+                default: throw new IllegalStateException("Unknown instruction " + op + ".");
+            }
+        }
+    }
+
+    private static boolean compare(byte op, double a, double b)
+    {
+        switch (op)
+        {
+            case OpCode.GREATER: return a > b;
+            case OpCode.GREATER_EQUAL: return a >= b;
+            case OpCode.LESS: return a < b;
+            default: return a <= b;
+        }
+    }
+//< VM.class::interpreter
+
+
+//> VM.class::utils
+    private static Object box(long value, Object reference)
+    {
+        if (isNumber(value)) return Double.longBitsToDouble(value);
+        if (value == NIL) return null;
+        if (value == OBJECT) return reference;
+        return value == TRUE;
+    }
+
+    private RuntimeError error(Chunk chunk, int ip, String message)
+    {
+        Arrays.fill(references, null);
+        return new RuntimeError(chunk.operators[ip], message);
+    }
+//< VM.class::utils
+}
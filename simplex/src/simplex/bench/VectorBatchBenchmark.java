@@ -0,0 +1,88 @@
+package simplex.bench;
+
+import simplex.math.Vector;
+import simplex.math.VectorBatch;
+import simplex.math.VectorOps;
+
+import java.util.Random;
+
+/**
+ * <p>Compares a point cloud held as an array of {@link Vector}, updated through {@link VectorOps}, with the same points held
+ * component-major by a {@link VectorBatch}.</p>
+ * <p><strong>Usage :</strong> {@code vector_batch_benchmark [points] [dimension]}, {@code 1000000} points of dimension {@code 3}
+ * by default.</p>
+ **/
+public class VectorBatchBenchmark {
+
+    public static void main(String[] args) throws Exception
+    {
+        int count = args.length >= 1 ? Integer.parseInt(args[0]) : 1_000_000;
+        int dimension = args.length == 2 ? Integer.parseInt(args[1]) : 3;
+
+        Random random = new Random(42);
+        Vector[] points = new Vector[count];
+        Vector[] velocities = new Vector[count];
+        for (int i = 0; i < count; i++)
+        {
+            points[i] = new Vector(new double[dimension]);
+            velocities[i] = new Vector(new double[dimension]);
+            for (int c = 0; c < dimension; c++)
+            {
+                points[i].set(c, random.nextDouble());
+                velocities[i].set(c, random.nextGaussian());
+            }
+        }
+        VectorBatch batch = VectorBatch.of(points);
+        VectorBatch batchVelocities = VectorBatch.of(velocities);
+        Vector direction = velocities[0];
+        double[] dots = new double[count];
+
+        Harness.measure("Vector[] / scaleAdd", "vectors", 10, 50, () -> {
+            for (int i = 0; i < count; i++)
+                VectorOps.scaleAdd(points[i], velocities[i], 0.01, points[i]);
+            return count;
+        });
+        Harness.measure("VectorBatch / scaleAdd", "vectors", 10, 50, () -> {
+            batch.scaleAdd(batchVelocities, 0.01);
+            return count;
+        });
+        Harness.measure("Vector[] / dot", "vectors", 10, 50, () -> {
+            for (int i = 0; i < count; i++)
+                dots[i] = VectorOps.dot(points[i], direction);
+            return count;
+        });
+        Harness.measure("VectorBatch / dot", "vectors", 10, 50, () -> {
+            batch.dot(direction, dots);
+            return count;
+        });
+        Harness.measure("Vector[] / normalize", "vectors", 10, 50, () -> {
+            for (int i = 0; i < count; i++)
+                VectorOps.scale(points[i], 1 / Math.sqrt(points[i].magnitude()), points[i]);
+            return count;
+        });
+        Harness.measure("VectorBatch / normalize", "vectors", 10, 50, () -> {
+            batch.normalize();
+            return count;
+        });
+        Harness.measure("Vector[] / bounding box", "vectors", 10, 50, () -> {
+            double sum = 0;
+            for (int c = 0; c < dimension; c++)
+            {
+                double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i < count; i++)
+                {
+                    min = Math.min(min, points[i].get(c));
+                    max = Math.max(max, points[i].get(c));
+                }
+                sum += max - min;
+            }
+            return sum >= 0 ? count : 0;
+        });
+        Harness.measure("VectorBatch / bounding box", "vectors", 10, 50, () -> {
+            double sum = 0;
+            for (int c = 0; c < dimension; c++)
+                sum += batch.max(c) - batch.min(c);
+            return sum >= 0 ? count : 0;
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package simplex.bench;
+
+import simplex.math.Vector;
+import simplex.math.VectorKernels;
+
+import java.util.Random;
+
+/**
+ * <p>Compares the {@link VectorKernels} with the scalar loops they replace, over vectors of dimension 2, 3, 16, 256 and 4096.
+ * Each operation runs over enough vectors to process about 32 thousand components.</p>
+ * <p><strong>Usage :</strong> {@code vector_kernels_benchmark}, and again with {@code -Dsimplex.math.scalar=true} to measure
+ * the scalar fallback of the kernels.</p>
+ **/
+public class VectorKernelsBenchmark {
+
+    private static final int COMPONENTS = 1 << 15;
+
+    public static void main(String[] args) throws Exception
+    {
+        for (int dimension : new int[] { 2, 3, 16, 256, 4096 })
+            run(dimension);
+    }
+
+    private static void run(int dimension) throws Exception
+    {
+        Random random = new Random(42);
+        int count = COMPONENTS / dimension;
+        Vector[] a = new Vector[count];
+        Vector[] b = new Vector[count];
+        for (int i = 0; i < count; i++)
+        {
+            a[i] = new Vector(random.doubles(dimension).toArray());
+            b[i] = new Vector(random.doubles(dimension).toArray());
+        }
+        double[] sink = new double[1];
+
+        Harness.measure(dimension + " / dot / get(i) loop", "components", 2000, 5000, () -> {
+            double sum = 0;
+            for (int i = 0; i < count; i++)
+                for (int c = 0; c < dimension; c++)
+                    sum += a[i].get(c) * b[i].get(c);
+            sink[0] += sum;
+            return COMPONENTS;
+        });
+        Harness.measure(dimension + " / dot / Vector.dot", "components", 2000, 5000, () -> {
+            double sum = 0;
+            for (int i = 0; i < count; i++)
+                sum += Vector.dot(a[i], b[i]);
+            sink[0] += sum;
+            return COMPONENTS;
+        });
+        Harness.measure(dimension + " / magnitude / Vector.magnitude", "components", 2000, 5000, () -> {
+            double sum = 0;
+            for (int i = 0; i < count; i++)
+                sum += a[i].magnitude();
+            sink[0] += sum;
+            return COMPONENTS;
+        });
+        Harness.measure(dimension + " / axpy / loop", "components", 2000, 5000, () -> {
+            for (int i = 0; i < count; i++)
+            {
+                double[] x = a[i].get(), y = b[i].get();
+                for (int c = 0; c < dimension; c++)
+                    y[c] += 1e-9 * x[c];
+            }
+            return COMPONENTS;
+        });
+        Harness.measure(dimension + " / axpy / VectorKernels.axpy", "components", 2000, 5000, () -> {
+            for (int i = 0; i < count; i++)
+                VectorKernels.axpy(1e-9, a[i].get(), b[i].get(), dimension);
+            return COMPONENTS;
+        });
+
+        if (Double.isNaN(sink[0])) System.out.println(sink[0]);
+    }
+}
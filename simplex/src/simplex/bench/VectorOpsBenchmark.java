@@ -0,0 +1,69 @@
+package simplex.bench;
+
+import simplex.math.Vector;
+import simplex.math.VectorOps;
+
+import java.util.Random;
+
+/**
+ * <p>Simulates the per-frame update of a set of particles, once through the allocating {@link Vector} API and once through the
+ * destination-passing {@link VectorOps}, and checks that the latter allocates {@code 0} bytes per frame. Both sides compute the
+ * same frame : {@code velocity += gravity * step}, {@code position += velocity * step}, the pixel of the position, and the sum
+ * of the squared speeds and of the distances to the center.</p>
+ * <p><strong>Usage :</strong> {@code vector_ops_benchmark [particles]}, {@code 10000} by default. It exits with the status
+ * {@code 1} if {@link VectorOps} allocated anything.</p>
+ **/
+public class VectorOpsBenchmark {
+
+    private static final double[][] SCREEN = { { -1, 1, 0, 1920 }, { -1, 1, 0, 1080 } };
+
+    public static void main(String[] args) throws Exception
+    {
+        int count = args.length == 1 ? Integer.parseInt(args[0]) : 10_000;
+
+        Random random = new Random(42);
+        Vector[] positions = new Vector[count];
+        Vector[] velocities = new Vector[count];
+        Vector[] pixels = new Vector[count];
+        for (int i = 0; i < count; i++)
+        {
+            positions[i] = new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1);
+            velocities[i] = new Vector(random.nextGaussian(), random.nextGaussian());
+            pixels[i] = new Vector(0, 0);
+        }
+        Vector gravity = new Vector(0, -9.81);
+        Vector center = new Vector(0, 0);
+        double step = 1 / 60.0;
+
+        Harness.measure("Vector (allocating)", "particles", 50, 200, () -> {
+            double energy = 0;
+            for (int i = 0; i < count; i++)
+            {
+                Vector.add(velocities[i], new Vector(gravity.get(0) * step, gravity.get(1) * step));
+                Vector.add(positions[i], new Vector(velocities[i].get(0) * step, velocities[i].get(1) * step));
+                pixels[i] = positions[i].map(SCREEN);
+                Vector offset = Vector.add(positions[i].copy(), new Vector(-center.get(0), -center.get(1)));
+                energy += Vector.dot(velocities[i], velocities[i]) + Math.sqrt(Vector.dot(offset, offset));
+            }
+            return energy > 0 ? count : 0;
+        });
+
+        Harness.Result result = Harness.measure("VectorOps (destination-passing)", "particles", 50, 200, () -> {
+            double energy = 0;
+            for (int i = 0; i < count; i++)
+            {
+                VectorOps.scaleAdd(velocities[i], gravity, step, velocities[i]);
+                VectorOps.scaleAdd(positions[i], velocities[i], step, positions[i]);
+                VectorOps.mapInto(positions[i], SCREEN, pixels[i]);
+                energy += VectorOps.dot(velocities[i], velocities[i]) + VectorOps.distance(positions[i], center);
+            }
+            return energy > 0 ? count : 0;
+        });
+
+        if (result.bytesPerOp > 0)
+        {
+            System.out.printf("VectorOps allocated %.0f B/op, expected 0.%n", result.bytesPerOp);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package simplex.bench;
+
+import simplex.math.VectorBatch;
+import simplex.math.VectorParallel;
+
+import java.util.Random;
+
+/**
+ * <p>Measures the scaling of {@link VectorParallel} from 1 thread to the number of available processors, on the dot product of
+ * two long arrays, an elementwise {@code scaleAdd}, and the clamp remap of a large {@link VectorBatch}. It also checks that the
+ * dot product is the same, bit for bit, at every parallelism.</p>
+ * <p><strong>Usage :</strong> {@code vector_parallel_benchmark [length in millions] [granularity]}, {@code 16} million elements
+ * and the {@link VectorParallel#DEFAULT_GRANULARITY} by default.</p>
+ **/
+public class VectorParallelBenchmark {
+
+    private static final double[][] REMAP = { { 0, 1, -1, 1 }, { 0, 1, 0, 1920 }, { 0, 1, 0, 1080 } };
+
+    public static void main(String[] args) throws Exception
+    {
+        int length = (args.length >= 1 ? Integer.parseInt(args[0]) : 16) * 1_000_000;
+        int granularity = args.length == 2 ? Integer.parseInt(args[1]) : VectorParallel.DEFAULT_GRANULARITY;
+
+        Random random = new Random(42);
+        double[] a = random.doubles(length).toArray();
+        double[] b = random.doubles(length).toArray();
+        double[] dst = new double[length];
+        VectorBatch batch = new VectorBatch(length / 3, 3);
+        double[] components = batch.components();
+        for (int i = 0; i < components.length; i++)
+            components[i] = random.nextDouble();
+
+        Double reference = null;
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; ; parallelism = Math.min(parallelism * 2, processors))
+        {
+            try (VectorParallel parallel = new VectorParallel(parallelism, granularity))
+            {
+                String prefix = parallelism + (parallelism == 1 ? " thread / " : " threads / ");
+
+                double[] dot = new double[1];
+                Harness.measure(prefix + "dot", "elements", 10, 30, () -> {
+                    dot[0] = parallel.dot(a, b, length);
+                    return length;
+                });
+                Harness.measure(prefix + "scaleAdd", "elements", 10, 30, () -> {
+                    parallel.scaleAdd(a, b, 0.5, dst, length);
+                    return length;
+                });
+                Harness.measure(prefix + "batch remap", "elements", 10, 30, () -> {
+                    parallel.map(batch, REMAP);
+                    parallel.map(batch, REMAP);
+                    return 2L * components.length;
+                });
+
+                if (reference == null) reference = dot[0];
+                else if (Double.doubleToLongBits(reference) != Double.doubleToLongBits(dot[0]))
+                    System.out.printf("The dot product differs at a parallelism of %d : %s instead of %s.%n", parallelism, dot[0], reference);
+            }
+
+            if (parallelism == processors) break;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 2-dimensional vector of double components. Unlike {@link Vector}, the components are fields rather than
+ * an array, so a Vec2 costs no array allocation nor bounds check, and the JIT can keep the ones that do not escape in
+ * registers.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec2#toVector()}
+ * and {@link Vec2#of(Vector)}.</p>
+ **/
+public final class Vec2 {
+
+    public static final Vec2 ZERO = new Vec2(0, 0);
+
+    public Vec2(double x, double y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+
+    public final double x, y;
+
+
+//> Vec2.class::conversions
+    /**
+     * @return the first 2 components of the {@code vector}.
+     * @throws IllegalArgumentException if the vector has less than 2 components.
+     **/
+    public static Vec2 of(Vector vector)
+    {
+        if (vector.getDimension() < 2)
+            throw new IllegalArgumentException("Expected at least 2 components, got " + vector.getDimension() + ".");
+        return new Vec2(vector.get(0), vector.get(1));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 2, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y);
+    }
+
+    /**
+     * @return the same vector, with the components rounded to {@code float}.
+     **/
+    public Vec2f toFloat()
+    {
+        return new Vec2f((float) x, (float) y);
+    }
+//< Vec2.class::conversions
+
+
+//> Vec2.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec2 add(Vec2 other)
+    {
+        return new Vec2(x + other.x, y + other.y);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec2 sub(Vec2 other)
+    {
+        return new Vec2(x - other.x, y - other.y);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec2 mul(Vec2 other)
+    {
+        return new Vec2(x * other.x, y * other.y);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec2 scale(double factor)
+    {
+        return new Vec2(x * factor, y * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec2 scaleAdd(Vec2 other, double factor)
+    {
+        return new Vec2(x + other.x * factor, y + other.y * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec2 negate()
+    {
+        return new Vec2(-x, -y);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public double dot(Vec2 other)
+    {
+        return x * other.x + y * other.y;
+    }
+
+    /**
+     * @return the {@code z} component of the cross product of the two vectors, taken in the {@code z = 0} plane. It is positive
+     *         when the {@code other} vector is counterclockwise from this one.
+     **/
+    public double cross(Vec2 other)
+    {
+        return x * other.y - y * other.x;
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec2#length()}.
+     **/
+    public double lengthSquared()
+    {
+        return x * x + y * y;
+    }
+
+    /**
+     * @return the Euclidean length of the vector. The squared length of the tiny and huge vectors underflows or overflows,
+     *         so they are first divided by their largest component.
+     **/
+    public double length()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return Math.sqrt(lengthSquared);
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return max;
+        double sx = x / max, sy = y / max;
+        return max * Math.sqrt(sx * sx + sy * sy);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public double distance(Vec2 other)
+    {
+        return sub(other).length();
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec2#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec2 normalize()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return scale(1 / Math.sqrt(lengthSquared));
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return this;
+        double sx = x / max, sy = y / max;
+        double length = Math.sqrt(sx * sx + sy * sy);
+        return new Vec2(sx / length, sy / length);
+    }
+
+    /**
+     * @return the largest absolute value of the components, NaN if one of them is.
+     **/
+    private double maxComponent()
+    {
+        return Math.max(Math.abs(x), Math.abs(y));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec2 lerp(Vec2 other, double t)
+    {
+        return new Vec2(x + (other.x - x) * t, y + (other.y - y) * t);
+    }
+//< Vec2.class::operations
+
+
+//> Vec2.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec2)) return false;
+        Vec2 other = (Vec2) object;
+        return Double.compare(x, other.x) == 0
+                && Double.compare(y, other.y) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Double.hashCode(x);
+        hash = 31 * hash + Double.hashCode(y);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + "]";
+    }
+//< Vec2.class::inherited-methods
+}
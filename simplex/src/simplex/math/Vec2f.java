@@ -0,0 +1,196 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 2-dimensional vector of float components, the single-precision counterpart of {@link Vec2}, half its size
+ * for the large sets of points that do not need the precision of a {@code double}.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec2f#toVector()}
+ * and {@link Vec2f#of(Vector)}.</p>
+ **/
+public final class Vec2f {
+
+    public static final Vec2f ZERO = new Vec2f(0f, 0f);
+
+    public Vec2f(float x, float y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+
+    public final float x, y;
+
+
+//> Vec2f.class::conversions
+    /**
+     * @return the first 2 components of the {@code vector}, rounded to {@code float}.
+     * @throws IllegalArgumentException if the vector has less than 2 components.
+     **/
+    public static Vec2f of(Vector vector)
+    {
+        if (vector.getDimension() < 2)
+            throw new IllegalArgumentException("Expected at least 2 components, got " + vector.getDimension() + ".");
+        return new Vec2f((float) vector.get(0), (float) vector.get(1));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 2, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y);
+    }
+
+    /**
+     * @return the same vector in double precision.
+     **/
+    public Vec2 toDouble()
+    {
+        return new Vec2(x, y);
+    }
+//< Vec2f.class::conversions
+
+
+//> Vec2f.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec2f add(Vec2f other)
+    {
+        return new Vec2f(x + other.x, y + other.y);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec2f sub(Vec2f other)
+    {
+        return new Vec2f(x - other.x, y - other.y);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec2f mul(Vec2f other)
+    {
+        return new Vec2f(x * other.x, y * other.y);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec2f scale(float factor)
+    {
+        return new Vec2f(x * factor, y * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec2f scaleAdd(Vec2f other, float factor)
+    {
+        return new Vec2f(x + other.x * factor, y + other.y * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec2f negate()
+    {
+        return new Vec2f(-x, -y);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public float dot(Vec2f other)
+    {
+        return x * other.x + y * other.y;
+    }
+
+    /**
+     * @return the {@code z} component of the cross product of the two vectors, taken in the {@code z = 0} plane. It is positive
+     *         when the {@code other} vector is counterclockwise from this one.
+     **/
+    public float cross(Vec2f other)
+    {
+        return x * other.y - y * other.x;
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec2f#length()}.
+     **/
+    public float lengthSquared()
+    {
+        return x * x + y * y;
+    }
+
+    /**
+     * @return the Euclidean length of the vector, whose square is summed in double precision so that it neither overflows
+     *         nor underflows.
+     **/
+    public float length()
+    {
+        return (float) Math.sqrt((double) x * x + (double) y * y);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public float distance(Vec2f other)
+    {
+        double dx = (double) x - other.x;
+        double dy = (double) y - other.y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec2f#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec2f normalize()
+    {
+        double length = Math.sqrt((double) x * x + (double) y * y);
+        if (length == 0 || !Double.isFinite(length)) return this;
+        return new Vec2f((float) (x / length), (float) (y / length));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec2f lerp(Vec2f other, float t)
+    {
+        return new Vec2f(x + (other.x - x) * t, y + (other.y - y) * t);
+    }
+//< Vec2f.class::operations
+
+
+//> Vec2f.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec2f)) return false;
+        Vec2f other = (Vec2f) object;
+        return Float.compare(x, other.x) == 0
+                && Float.compare(y, other.y) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Float.hashCode(x);
+        hash = 31 * hash + Float.hashCode(y);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + "]";
+    }
+//< Vec2f.class::inherited-methods
+}
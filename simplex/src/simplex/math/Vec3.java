@@ -0,0 +1,216 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 3-dimensional vector of double components. Unlike {@link Vector}, the components are fields rather than
+ * an array, so a Vec3 costs no array allocation nor bounds check, and the JIT can keep the ones that do not escape in
+ * registers.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec3#toVector()}
+ * and {@link Vec3#of(Vector)}.</p>
+ **/
+public final class Vec3 {
+
+    public static final Vec3 ZERO = new Vec3(0, 0, 0);
+
+    public Vec3(double x, double y, double z)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+
+    public final double x, y, z;
+
+
+//> Vec3.class::conversions
+    /**
+     * @return the first 3 components of the {@code vector}.
+     * @throws IllegalArgumentException if the vector has less than 3 components.
+     **/
+    public static Vec3 of(Vector vector)
+    {
+        if (vector.getDimension() < 3)
+            throw new IllegalArgumentException("Expected at least 3 components, got " + vector.getDimension() + ".");
+        return new Vec3(vector.get(0), vector.get(1), vector.get(2));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 3, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * @return the same vector, with the components rounded to {@code float}.
+     **/
+    public Vec3f toFloat()
+    {
+        return new Vec3f((float) x, (float) y, (float) z);
+    }
+//< Vec3.class::conversions
+
+
+//> Vec3.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec3 add(Vec3 other)
+    {
+        return new Vec3(x + other.x, y + other.y, z + other.z);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec3 sub(Vec3 other)
+    {
+        return new Vec3(x - other.x, y - other.y, z - other.z);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec3 mul(Vec3 other)
+    {
+        return new Vec3(x * other.x, y * other.y, z * other.z);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec3 scale(double factor)
+    {
+        return new Vec3(x * factor, y * factor, z * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec3 scaleAdd(Vec3 other, double factor)
+    {
+        return new Vec3(x + other.x * factor, y + other.y * factor, z + other.z * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec3 negate()
+    {
+        return new Vec3(-x, -y, -z);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public double dot(Vec3 other)
+    {
+        return x * other.x + y * other.y + z * other.z;
+    }
+
+    /**
+     * @return the cross product of the two vectors, orthogonal to both of them.
+     **/
+    public Vec3 cross(Vec3 other)
+    {
+        return new Vec3(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x);
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec3#length()}.
+     **/
+    public double lengthSquared()
+    {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * @return the Euclidean length of the vector. The squared length of the tiny and huge vectors underflows or overflows,
+     *         so they are first divided by their largest component.
+     **/
+    public double length()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return Math.sqrt(lengthSquared);
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return max;
+        double sx = x / max, sy = y / max, sz = z / max;
+        return max * Math.sqrt(sx * sx + sy * sy + sz * sz);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public double distance(Vec3 other)
+    {
+        return sub(other).length();
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec3#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec3 normalize()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return scale(1 / Math.sqrt(lengthSquared));
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return this;
+        double sx = x / max, sy = y / max, sz = z / max;
+        double length = Math.sqrt(sx * sx + sy * sy + sz * sz);
+        return new Vec3(sx / length, sy / length, sz / length);
+    }
+
+    /**
+     * @return the largest absolute value of the components, NaN if one of them is.
+     **/
+    private double maxComponent()
+    {
+        return Math.max(Math.max(Math.abs(x), Math.abs(y)), Math.abs(z));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec3 lerp(Vec3 other, double t)
+    {
+        return new Vec3(x + (other.x - x) * t, y + (other.y - y) * t, z + (other.z - z) * t);
+    }
+//< Vec3.class::operations
+
+
+//> Vec3.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec3)) return false;
+        Vec3 other = (Vec3) object;
+        return Double.compare(x, other.x) == 0
+                && Double.compare(y, other.y) == 0
+                && Double.compare(z, other.z) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Double.hashCode(x);
+        hash = 31 * hash + Double.hashCode(y);
+        hash = 31 * hash + Double.hashCode(z);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y, z]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + ", " + z + "]";
+    }
+//< Vec3.class::inherited-methods
+}
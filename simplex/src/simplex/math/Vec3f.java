@@ -0,0 +1,199 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 3-dimensional vector of float components, the single-precision counterpart of {@link Vec3}, half its size
+ * for the large sets of points that do not need the precision of a {@code double}.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec3f#toVector()}
+ * and {@link Vec3f#of(Vector)}.</p>
+ **/
+public final class Vec3f {
+
+    public static final Vec3f ZERO = new Vec3f(0f, 0f, 0f);
+
+    public Vec3f(float x, float y, float z)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+
+    public final float x, y, z;
+
+
+//> Vec3f.class::conversions
+    /**
+     * @return the first 3 components of the {@code vector}, rounded to {@code float}.
+     * @throws IllegalArgumentException if the vector has less than 3 components.
+     **/
+    public static Vec3f of(Vector vector)
+    {
+        if (vector.getDimension() < 3)
+            throw new IllegalArgumentException("Expected at least 3 components, got " + vector.getDimension() + ".");
+        return new Vec3f((float) vector.get(0), (float) vector.get(1), (float) vector.get(2));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 3, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y, z);
+    }
+
+    /**
+     * @return the same vector in double precision.
+     **/
+    public Vec3 toDouble()
+    {
+        return new Vec3(x, y, z);
+    }
+//< Vec3f.class::conversions
+
+
+//> Vec3f.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec3f add(Vec3f other)
+    {
+        return new Vec3f(x + other.x, y + other.y, z + other.z);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec3f sub(Vec3f other)
+    {
+        return new Vec3f(x - other.x, y - other.y, z - other.z);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec3f mul(Vec3f other)
+    {
+        return new Vec3f(x * other.x, y * other.y, z * other.z);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec3f scale(float factor)
+    {
+        return new Vec3f(x * factor, y * factor, z * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec3f scaleAdd(Vec3f other, float factor)
+    {
+        return new Vec3f(x + other.x * factor, y + other.y * factor, z + other.z * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec3f negate()
+    {
+        return new Vec3f(-x, -y, -z);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public float dot(Vec3f other)
+    {
+        return x * other.x + y * other.y + z * other.z;
+    }
+
+    /**
+     * @return the cross product of the two vectors, orthogonal to both of them.
+     **/
+    public Vec3f cross(Vec3f other)
+    {
+        return new Vec3f(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x);
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec3f#length()}.
+     **/
+    public float lengthSquared()
+    {
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * @return the Euclidean length of the vector, whose square is summed in double precision so that it neither overflows
+     *         nor underflows.
+     **/
+    public float length()
+    {
+        return (float) Math.sqrt((double) x * x + (double) y * y + (double) z * z);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public float distance(Vec3f other)
+    {
+        double dx = (double) x - other.x;
+        double dy = (double) y - other.y;
+        double dz = (double) z - other.z;
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec3f#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec3f normalize()
+    {
+        double length = Math.sqrt((double) x * x + (double) y * y + (double) z * z);
+        if (length == 0 || !Double.isFinite(length)) return this;
+        return new Vec3f((float) (x / length), (float) (y / length), (float) (z / length));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec3f lerp(Vec3f other, float t)
+    {
+        return new Vec3f(x + (other.x - x) * t, y + (other.y - y) * t, z + (other.z - z) * t);
+    }
+//< Vec3f.class::operations
+
+
+//> Vec3f.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec3f)) return false;
+        Vec3f other = (Vec3f) object;
+        return Float.compare(x, other.x) == 0
+                && Float.compare(y, other.y) == 0
+                && Float.compare(z, other.z) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Float.hashCode(x);
+        hash = 31 * hash + Float.hashCode(y);
+        hash = 31 * hash + Float.hashCode(z);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y, z]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + ", " + z + "]";
+    }
+//< Vec3f.class::inherited-methods
+}
@@ -0,0 +1,220 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 4-dimensional vector of double components. Unlike {@link Vector}, the components are fields rather than
+ * an array, so a Vec4 costs no array allocation nor bounds check, and the JIT can keep the ones that do not escape in
+ * registers.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec4#toVector()}
+ * and {@link Vec4#of(Vector)}.</p>
+ **/
+public final class Vec4 {
+
+    public static final Vec4 ZERO = new Vec4(0, 0, 0, 0);
+
+    public Vec4(double x, double y, double z, double w)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+
+
+    public final double x, y, z, w;
+
+
+//> Vec4.class::conversions
+    /**
+     * @return the first 4 components of the {@code vector}.
+     * @throws IllegalArgumentException if the vector has less than 4 components.
+     **/
+    public static Vec4 of(Vector vector)
+    {
+        if (vector.getDimension() < 4)
+            throw new IllegalArgumentException("Expected at least 4 components, got " + vector.getDimension() + ".");
+        return new Vec4(vector.get(0), vector.get(1), vector.get(2), vector.get(3));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 4, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y, z, w);
+    }
+
+    /**
+     * @return the same vector, with the components rounded to {@code float}.
+     **/
+    public Vec4f toFloat()
+    {
+        return new Vec4f((float) x, (float) y, (float) z, (float) w);
+    }
+//< Vec4.class::conversions
+
+
+//> Vec4.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec4 add(Vec4 other)
+    {
+        return new Vec4(x + other.x, y + other.y, z + other.z, w + other.w);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec4 sub(Vec4 other)
+    {
+        return new Vec4(x - other.x, y - other.y, z - other.z, w - other.w);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec4 mul(Vec4 other)
+    {
+        return new Vec4(x * other.x, y * other.y, z * other.z, w * other.w);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec4 scale(double factor)
+    {
+        return new Vec4(x * factor, y * factor, z * factor, w * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec4 scaleAdd(Vec4 other, double factor)
+    {
+        return new Vec4(x + other.x * factor, y + other.y * factor, z + other.z * factor, w + other.w * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec4 negate()
+    {
+        return new Vec4(-x, -y, -z, -w);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public double dot(Vec4 other)
+    {
+        return x * other.x + y * other.y + z * other.z + w * other.w;
+    }
+
+    /**
+     * @return the cross product of the {@code xyz} parts of the two vectors, as a direction with {@code w = 0}. The cross
+     *         product is only defined in 3 dimensions, so this is the one of homogeneous coordinates.
+     **/
+    public Vec4 cross(Vec4 other)
+    {
+        return new Vec4(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x, 0);
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec4#length()}.
+     **/
+    public double lengthSquared()
+    {
+        return x * x + y * y + z * z + w * w;
+    }
+
+    /**
+     * @return the Euclidean length of the vector. The squared length of the tiny and huge vectors underflows or overflows,
+     *         so they are first divided by their largest component.
+     **/
+    public double length()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return Math.sqrt(lengthSquared);
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return max;
+        double sx = x / max, sy = y / max, sz = z / max, sw = w / max;
+        return max * Math.sqrt(sx * sx + sy * sy + sz * sz + sw * sw);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public double distance(Vec4 other)
+    {
+        return sub(other).length();
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec4#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec4 normalize()
+    {
+        double lengthSquared = lengthSquared();
+        if (lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE)
+            return scale(1 / Math.sqrt(lengthSquared));
+        double max = maxComponent();
+        if (max == 0 || !Double.isFinite(max)) return this;
+        double sx = x / max, sy = y / max, sz = z / max, sw = w / max;
+        double length = Math.sqrt(sx * sx + sy * sy + sz * sz + sw * sw);
+        return new Vec4(sx / length, sy / length, sz / length, sw / length);
+    }
+
+    /**
+     * @return the largest absolute value of the components, NaN if one of them is.
+     **/
+    private double maxComponent()
+    {
+        return Math.max(Math.max(Math.max(Math.abs(x), Math.abs(y)), Math.abs(z)), Math.abs(w));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec4 lerp(Vec4 other, double t)
+    {
+        return new Vec4(x + (other.x - x) * t, y + (other.y - y) * t, z + (other.z - z) * t, w + (other.w - w) * t);
+    }
+//< Vec4.class::operations
+
+
+//> Vec4.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec4)) return false;
+        Vec4 other = (Vec4) object;
+        return Double.compare(x, other.x) == 0
+                && Double.compare(y, other.y) == 0
+                && Double.compare(z, other.z) == 0
+                && Double.compare(w, other.w) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Double.hashCode(x);
+        hash = 31 * hash + Double.hashCode(y);
+        hash = 31 * hash + Double.hashCode(z);
+        hash = 31 * hash + Double.hashCode(w);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y, z, w]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + ", " + z + ", " + w + "]";
+    }
+//< Vec4.class::inherited-methods
+}
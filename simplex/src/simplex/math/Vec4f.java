@@ -0,0 +1,204 @@
+package simplex.math;
+
+/**
+ * <p>Immutable 4-dimensional vector of float components, the single-precision counterpart of {@link Vec4}, half its size
+ * for the large sets of points that do not need the precision of a {@code double}.</p>
+ * <p>Each operation returns a new instance, and converts to and from {@link Vector} through {@link Vec4f#toVector()}
+ * and {@link Vec4f#of(Vector)}.</p>
+ **/
+public final class Vec4f {
+
+    public static final Vec4f ZERO = new Vec4f(0f, 0f, 0f, 0f);
+
+    public Vec4f(float x, float y, float z, float w)
+    {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.w = w;
+    }
+
+
+    public final float x, y, z, w;
+
+
+//> Vec4f.class::conversions
+    /**
+     * @return the first 4 components of the {@code vector}, rounded to {@code float}.
+     * @throws IllegalArgumentException if the vector has less than 4 components.
+     **/
+    public static Vec4f of(Vector vector)
+    {
+        if (vector.getDimension() < 4)
+            throw new IllegalArgumentException("Expected at least 4 components, got " + vector.getDimension() + ".");
+        return new Vec4f((float) vector.get(0), (float) vector.get(1), (float) vector.get(2), (float) vector.get(3));
+    }
+
+    /**
+     * @return a new {@link Vector} of dimension 4, holding the components.
+     **/
+    public Vector toVector()
+    {
+        return new Vector(x, y, z, w);
+    }
+
+    /**
+     * @return the same vector in double precision.
+     **/
+    public Vec4 toDouble()
+    {
+        return new Vec4(x, y, z, w);
+    }
+//< Vec4f.class::conversions
+
+
+//> Vec4f.class::operations
+    /**
+     * @return the sum of the two vectors.
+     **/
+    public Vec4f add(Vec4f other)
+    {
+        return new Vec4f(x + other.x, y + other.y, z + other.z, w + other.w);
+    }
+
+    /**
+     * @return this vector minus the {@code other}.
+     **/
+    public Vec4f sub(Vec4f other)
+    {
+        return new Vec4f(x - other.x, y - other.y, z - other.z, w - other.w);
+    }
+
+    /**
+     * @return the component-wise product of the two vectors.
+     **/
+    public Vec4f mul(Vec4f other)
+    {
+        return new Vec4f(x * other.x, y * other.y, z * other.z, w * other.w);
+    }
+
+    /**
+     * @return the vector multiplied by the scalar {@code factor}.
+     **/
+    public Vec4f scale(float factor)
+    {
+        return new Vec4f(x * factor, y * factor, z * factor, w * factor);
+    }
+
+    /**
+     * @return {@code this + other * factor}, without the intermediate vector of {@code other.scale(factor)}.
+     **/
+    public Vec4f scaleAdd(Vec4f other, float factor)
+    {
+        return new Vec4f(x + other.x * factor, y + other.y * factor, z + other.z * factor, w + other.w * factor);
+    }
+
+    /**
+     * @return the vector pointing the other way.
+     **/
+    public Vec4f negate()
+    {
+        return new Vec4f(-x, -y, -z, -w);
+    }
+
+    /**
+     * @return the dot product of the two vectors.
+     **/
+    public float dot(Vec4f other)
+    {
+        return x * other.x + y * other.y + z * other.z + w * other.w;
+    }
+
+    /**
+     * @return the cross product of the {@code xyz} parts of the two vectors, as a direction with {@code w = 0}. The cross
+     *         product is only defined in 3 dimensions, so this is the one of homogeneous coordinates.
+     **/
+    public Vec4f cross(Vec4f other)
+    {
+        return new Vec4f(y * other.z - z * other.y, z * other.x - x * other.z, x * other.y - y * other.x, 0f);
+    }
+
+    /**
+     * @return the squared Euclidean length, as {@link Vector#magnitude()}, which saves the square root of {@link Vec4f#length()}.
+     **/
+    public float lengthSquared()
+    {
+        return x * x + y * y + z * z + w * w;
+    }
+
+    /**
+     * @return the Euclidean length of the vector, whose square is summed in double precision so that it neither overflows
+     *         nor underflows.
+     **/
+    public float length()
+    {
+        return (float) Math.sqrt((double) x * x + (double) y * y + (double) z * z + (double) w * w);
+    }
+
+    /**
+     * @return the Euclidean distance between the two points.
+     **/
+    public float distance(Vec4f other)
+    {
+        double dx = (double) x - other.x;
+        double dy = (double) y - other.y;
+        double dz = (double) z - other.z;
+        double dw = (double) w - other.w;
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz + dw * dw);
+    }
+
+    /**
+     * @return the vector of the same direction, with a {@link Vec4f#length()} of {@code 1}. The zero vector has no
+     *         direction, and is returned as is, as are the vectors with an infinite or NaN component.
+     **/
+    public Vec4f normalize()
+    {
+        double length = Math.sqrt((double) x * x + (double) y * y + (double) z * z + (double) w * w);
+        if (length == 0 || !Double.isFinite(length)) return this;
+        return new Vec4f((float) (x / length), (float) (y / length), (float) (z / length), (float) (w / length));
+    }
+
+    /**
+     * @return the linear interpolation between this vector, at {@code t = 0}, and the {@code other}, at {@code t = 1}.
+     * @see XMath#lerp(double, double, double)
+     **/
+    public Vec4f lerp(Vec4f other, float t)
+    {
+        return new Vec4f(x + (other.x - x) * t, y + (other.y - y) * t, z + (other.z - z) * t, w + (other.w - w) * t);
+    }
+//< Vec4f.class::operations
+
+
+//> Vec4f.class::inherited-methods
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object) return true;
+        if (!(object instanceof Vec4f)) return false;
+        Vec4f other = (Vec4f) object;
+        return Float.compare(x, other.x) == 0
+                && Float.compare(y, other.y) == 0
+                && Float.compare(z, other.z) == 0
+                && Float.compare(w, other.w) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = Float.hashCode(x);
+        hash = 31 * hash + Float.hashCode(y);
+        hash = 31 * hash + Float.hashCode(z);
+        hash = 31 * hash + Float.hashCode(w);
+        return hash;
+    }
+
+    /**
+     * Display the vector in the form of {@code [x, y, z, w]}, as {@link Vector#toString()}.
+     **/
+    @Override
+    public String toString()
+    {
+        return "[" + x + ", " + y + ", " + z + ", " + w + "]";
+    }
+//< Vec4f.class::inherited-methods
+}
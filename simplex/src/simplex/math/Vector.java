@@ -79,10 +79,7 @@ public class Vector {
      **/
     public double magnitude()
     {
-        double magnitude = 0;
-        for (double value : values)
-            magnitude += value * value;
-        return magnitude;
+        return VectorKernels.magnitudeSquared(values, values.length);
     }
 
     /**
@@ -136,10 +133,7 @@ public class Vector {
         if (vector1.dimension != vector2.dimension)
             return 0;
 
-        double result = 0;
-        for (int i = 0; i < vector1.dimension; i++)
-            result += vector1.get(i) * vector2.get(i);
-        return result;
+        return VectorKernels.dot(vector1.values, vector2.values, vector1.dimension);
     }
 
     /**
@@ -0,0 +1,390 @@
+package simplex.math;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>Set of {@link VectorBatch#size()} vectors of the same {@link VectorBatch#dimension()}, stored component-major in a single
+ * {@code double[]}: all the {@code x} components, then all the {@code y} components, and so on. It holds millions of points
+ * without an object and an array per point, and its bulk operations run a tight loop per component, over contiguous memory,
+ * that the JIT can unroll and vectorise.</p>
+ * <p>The operations update the batch in place, and return it to be chained.</p>
+ * <p><strong>Example :</strong></p>
+ * <pre>{@code
+ *      VectorBatch positions = VectorBatch.of(new Vector(0, 0), new Vector(1, 2));
+ *      positions.add(new Vector(1, 1)).scale(2);
+ *      System.out.println(positions.get(1));
+ * }</pre>
+ * <p><strong>Output :</strong> {@code [4.0, 6.0]}</p>
+ **/
+public final class VectorBatch {
+
+    /**
+     * Creates a batch of {@code size} zero vectors.
+     **/
+    public VectorBatch(int size, int dimension)
+    {
+        if (size < 0 || dimension < 0 || (long) size * dimension > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Invalid batch of " + size + " vectors of dimension " + dimension + ".");
+        this.size = size;
+        this.dimension = dimension;
+        this.values = new double[size * dimension];
+    }
+
+    /**
+     * @return a batch holding a copy of the {@code vectors}, that should all have the dimension of the first one.
+     **/
+    public static VectorBatch of(Vector... vectors)
+    {
+        VectorBatch batch = new VectorBatch(vectors.length, vectors.length == 0 ? 0 : vectors[0].getDimension());
+        for (int row = 0; row < vectors.length; row++)
+            batch.set(row, vectors[row]);
+        return batch;
+    }
+
+
+
+    /**
+     * Components of the vectors, the component {@code c} of the row {@code r} being at {@code c * size + r}.
+     **/
+    private final double[] values;
+
+    private final int size;
+
+    private final int dimension;
+
+    /**
+     * Per-row scratch space of {@link VectorBatch#normalize()}, allocated once.
+     **/
+    private double[] rows;
+
+    /**
+     * @return the number of vectors.
+     **/
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the dimension of every vector.
+     **/
+    public int dimension()
+    {
+        return dimension;
+    }
+
+    /**
+     * @return the backing array, the component {@code c} of the row {@code r} being at {@code c * size() + r}.
+     **/
+    public double[] components()
+    {
+        return values;
+    }
+
+    /**
+     * Gets the component {@code component} of the vector at the index {@code row}.
+     **/
+    public double get(int row, int component)
+    {
+        return values[index(row, component)];
+    }
+
+    /**
+     * Sets the component {@code component} of the vector at the index {@code row}.
+     **/
+    public void set(int row, int component, double value)
+    {
+        values[index(row, component)] = value;
+    }
+
+    /**
+     * @return a new {@link Vector} holding the vector at the index {@code row}.
+     **/
+    public Vector get(int row)
+    {
+        return getInto(row, new Vector(new double[dimension]));
+    }
+
+    /**
+     * Copies the vector at the index {@code row} into {@code dst}, that should have the dimension of the batch.
+     * @return {@code dst}.
+     **/
+    public Vector getInto(int row, Vector dst)
+    {
+        checkDimension(dst);
+        double[] result = dst.get();
+        for (int c = 0; c < dimension; c++)
+            result[c] = values[index(row, c)];
+        return dst;
+    }
+
+    /**
+     * Copies the {@code vector}, that should have the dimension of the batch, at the index {@code row}.
+     **/
+    public void set(int row, Vector vector)
+    {
+        checkDimension(vector);
+        double[] components = vector.get();
+        for (int c = 0; c < dimension; c++)
+            values[index(row, c)] = components[c];
+    }
+
+
+
+//> VectorBatch.class::elementwise-operations
+    /**
+     * Adds the vector of the same row of {@code other}, to each vector.
+     **/
+    public VectorBatch add(VectorBatch other)
+    {
+        return scaleAdd(other, 1);
+    }
+
+    /**
+     * Subtracts the vector of the same row of {@code other}, from each vector.
+     **/
+    public VectorBatch sub(VectorBatch other)
+    {
+        return scaleAdd(other, -1);
+    }
+
+    /**
+     * Adds {@code other * factor} row by row, e.g. to move a batch of positions by a batch of velocities over a time step.
+     **/
+    public VectorBatch scaleAdd(VectorBatch other, double factor)
+    {
+        checkShape(other);
+        VectorKernels.axpy(factor, other.values, values, values.length);
+        return this;
+    }
+
+    /**
+     * Adds the same {@code vector} to each vector.
+     **/
+    public VectorBatch add(Vector vector)
+    {
+        checkDimension(vector);
+        for (int c = 0; c < dimension; c++)
+        {
+            double value = vector.get(c);
+            for (int i = c * size, end = i + size; i < end; i++)
+                values[i] += value;
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies each vector by the scalar {@code factor}.
+     **/
+    public VectorBatch scale(double factor)
+    {
+        VectorKernels.scale(values, factor, values, values.length);
+        return this;
+    }
+
+    /**
+     * Divides each vector by its Euclidean length, so that it has a length of {@code 1}. Unlike {@link Vector#normalize()}, that
+     * divides by the squared {@link Vector#magnitude()}, the zero vectors have no direction and are left as they are, as are the
+     * vectors holding an infinite or NaN component.
+     **/
+    public VectorBatch normalize()
+    {
+        double[] factors = lengthsSquared(scratch());
+        for (int i = 0; i < size; i++)
+        {
+            double lengthSquared = factors[i];
+            // The squared length of the tiny or huge vectors underflows or overflows, so they are normalised on their own.
+            factors[i] = lengthSquared >= Double.MIN_NORMAL && lengthSquared <= Double.MAX_VALUE
+                    ? 1 / Math.sqrt(lengthSquared) : normalizeRescaled(i);
+        }
+
+        for (int c = 0; c < dimension; c++)
+            for (int i = 0, base = c * size; i < size; i++)
+                values[base + i] *= factors[i];
+        return this;
+    }
+
+    /**
+     * Normalises the vector at the index {@code row} by first dividing it by its largest component, so that its squared length
+     * neither underflows nor overflows.
+     * @return {@code 1}, the factor left to apply to the vector.
+     **/
+    private double normalizeRescaled(int row)
+    {
+        double max = 0;
+        for (int c = 0; c < dimension; c++)
+            max = Math.max(max, Math.abs(values[c * size + row]));
+        if (max == 0 || !Double.isFinite(max)) return 1;
+
+        double sum = 0;
+        for (int c = 0; c < dimension; c++)
+        {
+            double value = values[c * size + row] / max;
+            sum += value * value;
+        }
+        double length = Math.sqrt(sum);
+        for (int c = 0; c < dimension; c++)
+            values[c * size + row] = values[c * size + row] / max / length;
+        return 1;
+    }
+
+    /**
+     * Maps each component of each vector, as {@link Vector#map(double[][])} but in place: the component {@code c} from the
+     * interval {@code [map[c][0], map[c][1]]} to the interval {@code [map[c][2], map[c][3]]}.
+     * @see XMath#clamp(double, double, double, double, double)
+     **/
+    public VectorBatch map(double[][] map)
+    {
+        for (int c = 0; c < dimension; c++)
+        {
+            double a = map[c][0], b = map[c][1], from = map[c][2], to = map[c][3];
+            for (int i = c * size, end = i + size; i < end; i++)
+                values[i] = XMath.clamp(values[i], a, b, from, to);
+        }
+        return this;
+    }
+//< VectorBatch.class::elementwise-operations
+
+
+//> VectorBatch.class::row-operations
+    /**
+     * Writes the dot product of each vector with the same {@code vector} into {@code dst}, of length {@link VectorBatch#size()}.
+     * @return {@code dst}.
+     **/
+    public double[] dot(Vector vector, double[] dst)
+    {
+        checkDimension(vector);
+        checkRows(dst);
+        Arrays.fill(dst, 0, size, 0);
+        for (int c = 0; c < dimension; c++)
+        {
+            double value = vector.get(c);
+            for (int i = 0, base = c * size; i < size; i++)
+                dst[i] += values[base + i] * value;
+        }
+        return dst;
+    }
+
+    /**
+     * Writes the squared Euclidean length of each vector, as {@link Vector#magnitude()}, into {@code dst}, of length
+     * {@link VectorBatch#size()}.
+     * @return {@code dst}.
+     **/
+    public double[] lengthsSquared(double[] dst)
+    {
+        checkRows(dst);
+        Arrays.fill(dst, 0, size, 0);
+        for (int c = 0; c < dimension; c++)
+            for (int i = 0, base = c * size; i < size; i++)
+                dst[i] += values[base + i] * values[base + i];
+        return dst;
+    }
+//< VectorBatch.class::row-operations
+
+
+//> VectorBatch.class::reductions
+    /**
+     * @return the sum of the component {@code component} over all the vectors.
+     **/
+    public double sum(int component)
+    {
+        double sum = 0;
+        for (int i = start(component), end = i + size; i < end; i++)
+            sum += values[i];
+        return sum;
+    }
+
+    /**
+     * @return the smallest value of the component {@code component}, {@link Double#POSITIVE_INFINITY} for an empty batch.
+     **/
+    public double min(int component)
+    {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = start(component), end = i + size; i < end; i++)
+            min = Math.min(min, values[i]);
+        return min;
+    }
+
+    /**
+     * @return the greatest value of the component {@code component}, {@link Double#NEGATIVE_INFINITY} for an empty batch.
+     **/
+    public double max(int component)
+    {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = start(component), end = i + size; i < end; i++)
+            max = Math.max(max, values[i]);
+        return max;
+    }
+
+    /**
+     * @return the sum of all the vectors.
+     **/
+    public Vector sum()
+    {
+        double[] sum = new double[dimension];
+        for (int c = 0; c < dimension; c++)
+            sum[c] = sum(c);
+        return new Vector(sum);
+    }
+
+    /**
+     * @return the component-wise minimum of all the vectors, i.e. the lower corner of their bounding box.
+     **/
+    public Vector min()
+    {
+        double[] min = new double[dimension];
+        for (int c = 0; c < dimension; c++)
+            min[c] = min(c);
+        return new Vector(min);
+    }
+
+    /**
+     * @return the component-wise maximum of all the vectors, i.e. the upper corner of their bounding box.
+     **/
+    public Vector max()
+    {
+        double[] max = new double[dimension];
+        for (int c = 0; c < dimension; c++)
+            max[c] = max(c);
+        return new Vector(max);
+    }
+//< VectorBatch.class::reductions
+
+
+
+    private int index(int row, int component)
+    {
+        return start(component) + Objects.checkIndex(row, size);
+    }
+
+    private int start(int component)
+    {
+        return Objects.checkIndex(component, dimension) * size;
+    }
+
+    private double[] scratch()
+    {
+        if (rows == null) rows = new double[size];
+        return rows;
+    }
+
+    private void checkDimension(Vector vector)
+    {
+        if (vector.getDimension() != dimension)
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + ", got " + vector.getDimension() + ".");
+    }
+
+    private void checkShape(VectorBatch other)
+    {
+        if (other.size != size || other.dimension != dimension)
+            throw new IllegalArgumentException("Expected a batch of " + size + " vectors of dimension " + dimension + ", got "
+                    + other.size + " of dimension " + other.dimension + ".");
+    }
+
+    private void checkRows(double[] dst)
+    {
+        if (dst.length < size)
+            throw new IllegalArgumentException("Expected an array of at least " + size + " values, got " + dst.length + ".");
+    }
+}
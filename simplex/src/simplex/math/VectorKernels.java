@@ -0,0 +1,148 @@
+package simplex.math;
+
+/**
+ * <p>Loops over the components of {@code double[]} vectors, shared by {@link Vector}, {@link VectorOps} and
+ * {@link VectorBatch}.</p>
+ * <p>The JIT vectorises the elementwise loops by itself, but not the reductions, as it has to keep the order of their
+ * additions. Above {@link VectorKernels#UNROLLED_LENGTH} components, {@link VectorKernels#dot(double[], double[], int)} and
+ * {@link VectorKernels#magnitudeSquared(double[], int)} therefore sum into 4 independent accumulators, to pipeline the
+ * multiply-adds instead of waiting on a single sum. Their result may then differ from the sequential sum in the last bits.
+ * Shorter vectors, and every vector when the {@code simplex.math.scalar} system property is set, go through the scalar
+ * fallback.</p>
+ **/
+public final class VectorKernels {
+
+    private VectorKernels() { }
+
+
+    /**
+     * Minimum number of components of the unrolled reductions, under which the tail handling costs more than it saves.
+     **/
+    static final int UNROLLED_LENGTH = 32;
+
+    /**
+     * False when the {@code simplex.math.scalar} system property is set, to only use the scalar fallback.
+     **/
+    private static final boolean UNROLLED = !Boolean.getBoolean("simplex.math.scalar");
+
+
+
+//> VectorKernels.class::reductions
+    /**
+     * @return the dot product of the first {@code length} components of {@code a} and {@code b}.
+     **/
+    public static double dot(double[] a, double[] b, int length)
+    {
+        return dot(a, b, 0, length);
+    }
+
+    /**
+     * @return the squared Euclidean length of the first {@code length} components of {@code a}.
+     **/
+    public static double magnitudeSquared(double[] a, int length)
+    {
+        return dot(a, a, 0, length);
+    }
+
+    /**
+     * @return the Euclidean length of the first {@code length} components of {@code a}.
+     **/
+    public static double magnitude(double[] a, int length)
+    {
+        return Math.sqrt(magnitudeSquared(a, length));
+    }
+
+    /**
+     * @return the dot product of the components of {@code a} and {@code b} between {@code from}, inclusive, and {@code to},
+     *         exclusive. The kernel only depends on the length of the range, so that a range always gives the same sum.
+     **/
+    static double dot(double[] a, double[] b, int from, int to)
+    {
+        return UNROLLED && to - from >= UNROLLED_LENGTH ? dotUnrolled(a, b, from, to) : dotScalar(a, b, from, to);
+    }
+
+    static double dotScalar(double[] a, double[] b, int from, int to)
+    {
+        double sum = 0;
+        for (int i = from; i < to; i++)
+            sum += a[i] * b[i];
+        return sum;
+    }
+
+    static double dotUnrolled(double[] a, double[] b, int from, int to)
+    {
+        if (from < 0 || to > a.length || to > b.length)
+            throw new ArrayIndexOutOfBoundsException(from < 0 ? from : to - 1);
+
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4)
+        {
+            sum0 += a[i] * b[i];
+            sum1 += a[i + 1] * b[i + 1];
+            sum2 += a[i + 2] * b[i + 2];
+            sum3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < to; i++)
+            sum0 += a[i] * b[i];
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+//< VectorKernels.class::reductions
+
+
+//> VectorKernels.class::elementwise
+    /**
+     * Adds {@code factor * x} to the first {@code length} components of {@code y}.
+     **/
+    public static void axpy(double factor, double[] x, double[] y, int length)
+    {
+        for (int i = 0; i < length; i++)
+            y[i] += factor * x[i];
+    }
+
+    /**
+     * Writes {@code a + b} into {@code dst}, for the first {@code length} components.
+     **/
+    public static void add(double[] a, double[] b, double[] dst, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[i] = a[i] + b[i];
+    }
+
+    /**
+     * Writes {@code a - b} into {@code dst}, for the first {@code length} components.
+     **/
+    public static void sub(double[] a, double[] b, double[] dst, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[i] = a[i] - b[i];
+    }
+
+    /**
+     * Writes the component-wise product of {@code a} and {@code b} into {@code dst}, for the first {@code length} components.
+     **/
+    public static void mul(double[] a, double[] b, double[] dst, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[i] = a[i] * b[i];
+    }
+
+    /**
+     * Writes {@code a * factor} into {@code dst}, for the first {@code length} components.
+     **/
+    public static void scale(double[] a, double factor, double[] dst, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[i] = a[i] * factor;
+    }
+
+    /**
+     * Writes {@code a + b * factor} into {@code dst}, for the first {@code length} components.
+     **/
+    public static void scaleAdd(double[] a, double[] b, double factor, double[] dst, int length)
+    {
+        for (int i = 0; i < length; i++)
+            dst[i] = a[i] + b[i] * factor;
+    }
+//< VectorKernels.class::elementwise
+}
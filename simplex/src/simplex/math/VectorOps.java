@@ -0,0 +1,154 @@
+package simplex.math;
+
+/**
+ * <p>Companion of {@link Vector}, whose operations write their result into a destination given by the caller, instead of
+ * allocating it. Nothing is allocated: no result vector, no varargs array, no stream. It can thus run in per-frame code, such as
+ * {@code Scene.onDisplay}, without producing any garbage.</p>
+ * <p>The destination may be one of the operands, to update a vector in place. The vectors must all have the same dimension,
+ * otherwise an {@link IllegalArgumentException} is thrown.</p>
+ * <p><strong>Example :</strong></p>
+ * <pre>{@code
+ *      Vector position = new Vector(0, 0);
+ *      Vector velocity = new Vector(2, 1);
+ *      VectorOps.scaleAdd(position, velocity, 0.5, position);
+ *      System.out.println(position);
+ * }</pre>
+ * <p><strong>Output :</strong> {@code [1.0, 0.5]}</p>
+ **/
+public final class VectorOps {
+
+    private VectorOps() { }
+
+
+
+    /**
+     * Writes {@code a + b} into {@code dst}.
+     * @return {@code dst}.
+     **/
+    public static Vector add(Vector a, Vector b, Vector dst)
+    {
+        int dimension = check(a, b, dst);
+        VectorKernels.add(a.get(), b.get(), dst.get(), dimension);
+        return dst;
+    }
+
+    /**
+     * Writes {@code a - b} into {@code dst}.
+     * @return {@code dst}.
+     **/
+    public static Vector sub(Vector a, Vector b, Vector dst)
+    {
+        int dimension = check(a, b, dst);
+        VectorKernels.sub(a.get(), b.get(), dst.get(), dimension);
+        return dst;
+    }
+
+    /**
+     * Writes the component-wise product of {@code a} and {@code b} into {@code dst}.
+     * @return {@code dst}.
+     **/
+    public static Vector mul(Vector a, Vector b, Vector dst)
+    {
+        int dimension = check(a, b, dst);
+        VectorKernels.mul(a.get(), b.get(), dst.get(), dimension);
+        return dst;
+    }
+
+    /**
+     * Writes {@code a * factor} into {@code dst}.
+     * @return {@code dst}.
+     **/
+    public static Vector scale(Vector a, double factor, Vector dst)
+    {
+        int dimension = check(a, a, dst);
+        VectorKernels.scale(a.get(), factor, dst.get(), dimension);
+        return dst;
+    }
+
+    /**
+     * Writes {@code a + b * factor} into {@code dst}, e.g. to move a position by a velocity over a time step.
+     * @return {@code dst}.
+     **/
+    public static Vector scaleAdd(Vector a, Vector b, double factor, Vector dst)
+    {
+        int dimension = check(a, b, dst);
+        VectorKernels.scaleAdd(a.get(), b.get(), factor, dst.get(), dimension);
+        return dst;
+    }
+
+    /**
+     * Copies the components of {@code a} into {@code dst}, as {@link Vector#copy()} without the new instance.
+     * @return {@code dst}.
+     **/
+    public static Vector copy(Vector a, Vector dst)
+    {
+        int dimension = check(a, a, dst);
+        System.arraycopy(a.get(), 0, dst.get(), 0, dimension);
+        return dst;
+    }
+
+    /**
+     * Writes the {@link Vector#map(double[][])} of {@code a} into {@code dst}.
+     * @return {@code dst}.
+     **/
+    public static Vector mapInto(Vector a, double[][] map, Vector dst)
+    {
+        int dimension = check(a, a, dst);
+        double[] x = a.get(), result = dst.get();
+        for (int i = 0; i < dimension; i++)
+        {
+            double[] row = map[i];
+            result[i] = XMath.clamp(x[i], row[0], row[1], row[2], row[3]);
+        }
+        return dst;
+    }
+
+    /**
+     * The dot product of {@code a} and {@code b}. Unlike {@link Vector#dot(Vector, Vector)}, vectors of different dimensions are
+     * an error rather than a product of {@code 0}.
+     **/
+    public static double dot(Vector a, Vector b)
+    {
+        return VectorKernels.dot(a.get(), b.get(), check(a, b, b));
+    }
+
+    /**
+     * The squared Euclidean distance between the points {@code a} and {@code b}, which saves the square root of
+     * {@link VectorOps#distance(Vector, Vector)}.
+     **/
+    public static double distanceSquared(Vector a, Vector b)
+    {
+        int dimension = check(a, b, b);
+        double[] x = a.get(), y = b.get();
+        double result = 0;
+        for (int i = 0; i < dimension; i++)
+        {
+            double d = x[i] - y[i];
+            result += d * d;
+        }
+        return result;
+    }
+
+    /**
+     * The Euclidean distance between the points {@code a} and {@code b}, without computing the {@code a - b} vector.
+     **/
+    public static double distance(Vector a, Vector b)
+    {
+        return Math.sqrt(distanceSquared(a, b));
+    }
+
+
+
+    /**
+     * @return the common dimension of the vectors.
+     * @throws IllegalArgumentException if their dimensions differ.
+     **/
+    private static int check(Vector a, Vector b, Vector dst)
+    {
+        int dimension = dst.getDimension();
+        if (a.getDimension() != dimension || b.getDimension() != dimension)
+            throw new IllegalArgumentException("Mismatched dimensions : " + a.getDimension() + ", " + b.getDimension()
+                    + " and " + dimension + ".");
+        return dimension;
+    }
+}
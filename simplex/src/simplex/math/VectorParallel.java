@@ -0,0 +1,370 @@
+package simplex.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * <p>Runs the operations of {@link VectorKernels} and {@link VectorBatch} over large arrays on a {@link ForkJoinPool}. The
+ * arrays are split in halves until the ranges hold at most {@link VectorParallel#granularity()} elements, and arrays no longer
+ * than the granularity are processed on the calling thread.</p>
+ * <p>The split tree only depends on the length of the array and the granularity, never on the parallelism nor the scheduling,
+ * and the partial sums of the reductions are combined along this tree. A reduction thus gives the same result, bit for bit, on
+ * every run and any number of cores, as long as the granularity is the same.</p>
+ * <p>An instance created with a parallelism owns its pool, and shuts it down on {@link VectorParallel#close()}. The pool given
+ * to {@link VectorParallel#VectorParallel(ForkJoinPool, int)}, like the common pool, belongs to the caller and is left
+ * running.</p>
+ * <p><strong>Example :</strong></p>
+ * <pre>{@code
+ *      try (VectorParallel parallel = new VectorParallel(8, 1 << 16))
+ *      {
+ *          double dot = parallel.dot(features, weights, features.length);
+ *      }
+ * }</pre>
+ **/
+public final class VectorParallel implements AutoCloseable {
+
+    /**
+     * Default {@link VectorParallel#granularity()}, large enough for a range to outweigh the cost of its task.
+     **/
+    public static final int DEFAULT_GRANULARITY = 1 << 15;
+
+    private static final VectorParallel COMMON = new VectorParallel(ForkJoinPool.commonPool(), DEFAULT_GRANULARITY);
+
+    /**
+     * Runs on a new {@link ForkJoinPool} of the given {@code parallelism}, whose threads are daemons. The instance owns the
+     * pool, to shut down with {@link VectorParallel#close()}.
+     * @see VectorParallel#VectorParallel(ForkJoinPool, int)
+     **/
+    public VectorParallel(int parallelism, int granularity)
+    {
+        this(new ForkJoinPool(parallelism), granularity, true);
+    }
+
+    /**
+     * Runs on the {@code pool} of the caller, that {@link VectorParallel#close()} leaves running.
+     * @param granularity maximum number of elements processed by a single task, at least {@code 1}.
+     **/
+    public VectorParallel(ForkJoinPool pool, int granularity)
+    {
+        this(pool, granularity, false);
+    }
+
+    private VectorParallel(ForkJoinPool pool, int granularity, boolean ownsPool)
+    {
+        if (granularity < 1)
+            throw new IllegalArgumentException("The granularity should be at least 1, got " + granularity + ".");
+        this.pool = pool;
+        this.granularity = granularity;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * @return the instance running on the {@link ForkJoinPool#commonPool()}, with the {@link VectorParallel#DEFAULT_GRANULARITY}.
+     **/
+    public static VectorParallel common()
+    {
+        return COMMON;
+    }
+
+
+
+    private final ForkJoinPool pool;
+
+    private final int granularity;
+
+    /**
+     * True if the pool was created by this instance, and should be shut down by {@link VectorParallel#close()}.
+     **/
+    private final boolean ownsPool;
+
+    /**
+     * @return the number of threads of the pool.
+     **/
+    public int parallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * @return the maximum number of elements processed by a single task.
+     **/
+    public int granularity()
+    {
+        return granularity;
+    }
+
+    /**
+     * @return an instance on the same pool, splitting the arrays down to ranges of {@code granularity} elements. It does not own
+     *         the pool, which is still shut down by closing this instance.
+     **/
+    public VectorParallel withGranularity(int granularity)
+    {
+        return new VectorParallel(pool, granularity);
+    }
+
+    /**
+     * Shuts down the pool if this instance created it, after the tasks already submitted. Does nothing otherwise.
+     **/
+    @Override
+    public void close()
+    {
+        if (ownsPool) pool.shutdown();
+    }
+
+
+
+//> VectorParallel.class::building-blocks
+    /**
+     * Processes the elements between {@code from}, inclusive, and {@code to}, exclusive.
+     **/
+    @FunctionalInterface
+    public interface RangeAction
+    {
+        void apply(int from, int to);
+    }
+
+    /**
+     * Reduces the elements between {@code from}, inclusive, and {@code to}, exclusive, to a single value.
+     **/
+    @FunctionalInterface
+    public interface RangeReduction
+    {
+        double apply(int from, int to);
+    }
+
+    /**
+     * Runs the {@code action} over the ranges of the split tree of {@code [0, length)}, in parallel.
+     **/
+    public void forRange(int length, RangeAction action)
+    {
+        if (length <= granularity) action.apply(0, length);
+        else pool.invoke(new ForRange(action, granularity, 0, length));
+    }
+
+    /**
+     * Runs the {@code reduction} over the ranges of the split tree of {@code [0, length)} in parallel, and sums the partial
+     * results along the tree.
+     **/
+    public double reduce(int length, RangeReduction reduction)
+    {
+        if (length <= granularity) return reduction.apply(0, length);
+
+        Reduce task = new Reduce(reduction, granularity, 0, length);
+        pool.invoke(task);
+        return task.result;
+    }
+
+    private static final class ForRange extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int granularity;
+        private final int from;
+        private final int to;
+
+        ForRange(RangeAction action, int granularity, int from, int to)
+        {
+            this.action = action;
+            this.granularity = granularity;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= granularity)
+            {
+                action.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForRange(action, granularity, from, middle), new ForRange(action, granularity, middle, to));
+        }
+    }
+
+    private static final class Reduce extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeReduction reduction;
+        private final int granularity;
+        private final int from;
+        private final int to;
+        double result;
+
+        Reduce(RangeReduction reduction, int granularity, int from, int to)
+        {
+            this.reduction = reduction;
+            this.granularity = granularity;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= granularity)
+            {
+                result = reduction.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            Reduce left = new Reduce(reduction, granularity, from, middle);
+            Reduce right = new Reduce(reduction, granularity, middle, to);
+            invokeAll(left, right);
+            result = left.result + right.result;
+        }
+    }
+//< VectorParallel.class::building-blocks
+
+
+//> VectorParallel.class::array-operations
+    /**
+     * @return the dot product of the first {@code length} components of {@code a} and {@code b}.
+     * @see VectorKernels#dot(double[], double[], int)
+     **/
+    public double dot(double[] a, double[] b, int length)
+    {
+        checkLength(a, length);
+        checkLength(b, length);
+        return reduce(length, (from, to) -> VectorKernels.dot(a, b, from, to));
+    }
+
+    /**
+     * @return the sum of the first {@code length} components of {@code a}.
+     **/
+    public double sum(double[] a, int length)
+    {
+        checkLength(a, length);
+        return reduce(length, (from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++)
+                sum += a[i];
+            return sum;
+        });
+    }
+
+    /**
+     * Writes {@code a + b * factor} into {@code dst}, for the first {@code length} components.
+     * @see VectorKernels#scaleAdd(double[], double[], double, double[], int)
+     **/
+    public void scaleAdd(double[] a, double[] b, double factor, double[] dst, int length)
+    {
+        checkLength(a, length);
+        checkLength(b, length);
+        checkLength(dst, length);
+        forRange(length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                dst[i] = a[i] + b[i] * factor;
+        });
+    }
+
+    /**
+     * Writes {@code function(a[i])} into {@code dst[i]}, for the first {@code length} components.
+     **/
+    public void map(double[] a, DoubleUnaryOperator function, double[] dst, int length)
+    {
+        checkLength(a, length);
+        checkLength(dst, length);
+        forRange(length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                dst[i] = function.applyAsDouble(a[i]);
+        });
+    }
+
+    /**
+     * Maps the first {@code length} elements of {@code values} from the interval {@code [a, b]} to the interval
+     * {@code [c, d]}, into {@code dst}.
+     * @see XMath#clamp(double, double, double, double, double)
+     **/
+    public void clamp(double[] values, double a, double b, double c, double d, double[] dst, int length)
+    {
+        checkLength(values, length);
+        checkLength(dst, length);
+        forRange(length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                dst[i] = XMath.clamp(values[i], a, b, c, d);
+        });
+    }
+//< VectorParallel.class::array-operations
+
+
+//> VectorParallel.class::vector-operations
+    /**
+     * @return the dot product of two vectors, {@code 0} if their dimensions differ as for {@link Vector#dot(Vector, Vector)}.
+     **/
+    public double dot(Vector a, Vector b)
+    {
+        if (a.getDimension() != b.getDimension())
+            return 0;
+        return dot(a.get(), b.get(), a.getDimension());
+    }
+
+    /**
+     * Adds {@code other * factor} to the {@code batch} row by row, as {@link VectorBatch#scaleAdd(VectorBatch, double)}.
+     * @return {@code batch}.
+     **/
+    public VectorBatch scaleAdd(VectorBatch batch, VectorBatch other, double factor)
+    {
+        if (other.size() != batch.size() || other.dimension() != batch.dimension())
+            throw new IllegalArgumentException("Mismatched batches of " + batch.size() + " and " + other.size() + " vectors.");
+        double[] values = batch.components();
+        scaleAdd(values, other.components(), factor, values, values.length);
+        return batch;
+    }
+
+    /**
+     * Maps each component of each vector of the {@code batch}, as {@link VectorBatch#map(double[][])}.
+     * @return {@code batch}.
+     **/
+    public VectorBatch map(VectorBatch batch, double[][] map)
+    {
+        double[] values = batch.components();
+        int size = batch.size();
+        if (size == 0) return batch;
+
+        forRange(values.length, (from, to) -> {
+            // A range may span the end of a component and the start of the next one, that have their own intervals.
+            while (from < to)
+            {
+                double[] interval = map[from / size];
+                int end = Math.min(to, (from / size + 1) * size);
+                double a = interval[0], b = interval[1], c = interval[2], d = interval[3];
+                for (int i = from; i < end; i++)
+                    values[i] = XMath.clamp(values[i], a, b, c, d);
+                from = end;
+            }
+        });
+        return batch;
+    }
+
+    /**
+     * @return the sum of the component {@code component} over all the vectors of the {@code batch}, as
+     *         {@link VectorBatch#sum(int)} but summed along the split tree, which may differ from it in the last bits.
+     **/
+    public double sum(VectorBatch batch, int component)
+    {
+        if (component < 0 || component >= batch.dimension())
+            throw new IndexOutOfBoundsException("Component " + component + " out of bounds for dimension " + batch.dimension());
+        double[] values = batch.components();
+        int start = component * batch.size();
+        return reduce(batch.size(), (from, to) -> {
+            double sum = 0;
+            for (int i = start + from; i < start + to; i++)
+                sum += values[i];
+            return sum;
+        });
+    }
+//< VectorParallel.class::vector-operations
+
+
+
+    private static void checkLength(double[] array, int length)
+    {
+        if (length < 0 || length > array.length)
+            throw new IllegalArgumentException("Invalid length " + length + " for an array of " + array.length + " values.");
+    }
+}